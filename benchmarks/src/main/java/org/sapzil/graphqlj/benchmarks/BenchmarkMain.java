@@ -0,0 +1,28 @@
+package org.sapzil.graphqlj.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmark suite with the gc profiler attached, so that every
+ * result also reports the allocation rate and bytes allocated per
+ * operation (gc.alloc.rate.norm, i.e. per lexed or parsed document).
+ *
+ * An optional argument is a regular expression selecting benchmarks,
+ * e.g. "ParserBenchmark".
+ */
+public final class BenchmarkMain {
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : "org\\.sapzil\\.graphqlj\\.benchmarks\\..*")
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,224 @@
+package org.sapzil.graphqlj.benchmarks;
+
+/**
+ * Query shapes used by the benchmarks. Each entry builds its document
+ * deterministically so that runs are comparable across machines.
+ */
+public enum Corpus {
+    /**
+     * A tiny introspection-style query, the shape most tooling sends.
+     */
+    TINY {
+        @Override String build() {
+            return "query TypeName { __schema { queryType { name } mutationType { name } } }";
+        }
+    },
+
+    /**
+     * The full introspection query sent by GraphiQL and code generators.
+     */
+    INTROSPECTION {
+        @Override String build() {
+            return "query IntrospectionQuery {\n" +
+                    "  __schema {\n" +
+                    "    queryType { name }\n" +
+                    "    mutationType { name }\n" +
+                    "    types {\n" +
+                    "      ...FullType\n" +
+                    "    }\n" +
+                    "    directives {\n" +
+                    "      name\n" +
+                    "      description\n" +
+                    "      args {\n" +
+                    "        ...InputValue\n" +
+                    "      }\n" +
+                    "      onOperation\n" +
+                    "      onFragment\n" +
+                    "      onField\n" +
+                    "    }\n" +
+                    "  }\n" +
+                    "}\n" +
+                    "\n" +
+                    "fragment FullType on __Type {\n" +
+                    "  kind\n" +
+                    "  name\n" +
+                    "  description\n" +
+                    "  fields {\n" +
+                    "    name\n" +
+                    "    description\n" +
+                    "    args {\n" +
+                    "      ...InputValue\n" +
+                    "    }\n" +
+                    "    type {\n" +
+                    "      ...TypeRef\n" +
+                    "    }\n" +
+                    "    isDeprecated\n" +
+                    "    deprecationReason\n" +
+                    "  }\n" +
+                    "  inputFields {\n" +
+                    "    ...InputValue\n" +
+                    "  }\n" +
+                    "  interfaces {\n" +
+                    "    ...TypeRef\n" +
+                    "  }\n" +
+                    "  enumValues {\n" +
+                    "    name\n" +
+                    "    description\n" +
+                    "    isDeprecated\n" +
+                    "    deprecationReason\n" +
+                    "  }\n" +
+                    "  possibleTypes {\n" +
+                    "    ...TypeRef\n" +
+                    "  }\n" +
+                    "}\n" +
+                    "\n" +
+                    "fragment InputValue on __InputValue {\n" +
+                    "  name\n" +
+                    "  description\n" +
+                    "  type { ...TypeRef }\n" +
+                    "  defaultValue\n" +
+                    "}\n" +
+                    "\n" +
+                    "fragment TypeRef on __Type {\n" +
+                    "  kind\n" +
+                    "  name\n" +
+                    "  ofType {\n" +
+                    "    kind\n" +
+                    "    name\n" +
+                    "    ofType {\n" +
+                    "      kind\n" +
+                    "      name\n" +
+                    "      ofType {\n" +
+                    "        kind\n" +
+                    "        name\n" +
+                    "      }\n" +
+                    "    }\n" +
+                    "  }\n" +
+                    "}\n";
+        }
+    },
+
+    /**
+     * Selection sets nested 64 levels deep, with a few sibling fields
+     * at every level.
+     */
+    DEEP_NESTING {
+        @Override String build() {
+            int depth = 64;
+            StringBuilder sb = new StringBuilder("query Deep {\n");
+            for (int i = 0; i < depth; i++) {
+                indent(sb, i + 1);
+                sb.append("node").append(i).append("(id: ").append(i).append(") {\n");
+                indent(sb, i + 2);
+                sb.append("id\n");
+                indent(sb, i + 2);
+                sb.append("name\n");
+            }
+            for (int i = depth; i > 0; i--) {
+                indent(sb, i);
+                sb.append("}\n");
+            }
+            return sb.append("}\n").toString();
+        }
+    },
+
+    /**
+     * A batch of mutations, each taking many arguments including nested
+     * input objects and lists.
+     */
+    ARGUMENT_HEAVY_MUTATION {
+        @Override String build() {
+            StringBuilder sb = new StringBuilder("mutation UpdateEverything($clientId: String!, $dryRun: Boolean = false) {\n");
+            for (int i = 0; i < 50; i++) {
+                sb.append("  update").append(i).append(": updateRecord(");
+                sb.append("id: ").append(1000 + i).append(", ");
+                sb.append("clientId: $clientId, ");
+                sb.append("dryRun: $dryRun, ");
+                sb.append("score: ").append(i).append(".5e-3, ");
+                sb.append("status: ACTIVE, ");
+                sb.append("enabled: true, ");
+                sb.append("tags: [\"alpha\", \"beta\", \"gamma\", \"delta\"], ");
+                sb.append("input: {name: \"record ").append(i).append("\", weight: ").append(i * 7)
+                        .append(", owner: {id: ").append(i).append(", role: ADMIN}, flags: [1, 2, 3]}");
+                sb.append(") @include: true {\n");
+                sb.append("    id\n    version\n    updatedAt\n  }\n");
+            }
+            return sb.append("}\n").toString();
+        }
+    },
+
+    /**
+     * Arguments carrying long string literals, such as cursors, opaque IDs
+     * and serialized JSON blobs.
+     */
+    LONG_STRINGS {
+        @Override String build() {
+            StringBuilder sb = new StringBuilder("query Strings {\n");
+            for (int i = 0; i < 20; i++) {
+                sb.append("  s").append(i).append(": search(cursor: \"");
+                for (int j = 0; j < 64; j++) {
+                    sb.append("YXJyYXljb25uZWN0aW9uOjEyMw");
+                }
+                sb.append("\", filter: \"{\\\"field\\\": \\\"name\\\", \\\"op\\\": \\\"eq\\\", \\\"value\\\": \\\"")
+                        .append(i).append("\\\"}\") {\n");
+                sb.append("    edges { cursor node { id } }\n  }\n");
+            }
+            return sb.append("}\n").toString();
+        }
+    },
+
+    /**
+     * Wide selections of long, aliased field names with no arguments, so
+     * that lexing time is dominated by names.
+     */
+    NAME_HEAVY {
+        @Override String build() {
+            StringBuilder sb = new StringBuilder("query CustomerAccountOverviewWithRecentActivity {\n");
+            for (int i = 0; i < 40; i++) {
+                sb.append("  customerAccount").append(i).append(": customerAccountByExternalIdentifier {\n");
+                for (int j = 0; j < 8; j++) {
+                    sb.append("    primaryContactInformation_").append(j)
+                            .append(": primaryContactInformationWithVerificationStatus\n");
+                }
+                sb.append("    ...CustomerAccountSummaryFields\n  }\n");
+            }
+            return sb.append("}\n").toString();
+        }
+    },
+
+    /**
+     * A heavily commented, indented document using commas as separators, so
+     * that lexing time is dominated by whitespace and comments.
+     */
+    COMMENT_HEAVY {
+        @Override String build() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("# Generated by the client code generator. Do not edit.\n");
+            sb.append("# Source: src/components/Dashboard/queries.graphql\n\n");
+            sb.append("query Dashboard {\n");
+            for (int i = 0; i < 40; i++) {
+                indent(sb, 1);
+                sb.append("# Section ").append(i).append(": fetched on every dashboard render; keep it small.\n");
+                indent(sb, 1);
+                sb.append("# See the data-loading guidelines before adding fields here.\n");
+                indent(sb, 1);
+                sb.append("section").append(i).append(" {\n");
+                for (int j = 0; j < 3; j++) {
+                    indent(sb, 2);
+                    sb.append("f").append(j).append(",        # trailing comment on field ").append(j).append("\n");
+                }
+                indent(sb, 1);
+                sb.append("}\n\n");
+            }
+            return sb.append("}\n").toString();
+        }
+    };
+
+    abstract String build();
+
+    private static void indent(StringBuilder sb, int level) {
+        for (int i = 0; i < level; i++) {
+            sb.append("  ");
+        }
+    }
+}
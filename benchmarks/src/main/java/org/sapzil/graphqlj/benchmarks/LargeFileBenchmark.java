@@ -0,0 +1,75 @@
+package org.sapzil.graphqlj.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sapzil.graphqlj.language.GraphQLLanguageException;
+import org.sapzil.graphqlj.language.ParseOptions;
+import org.sapzil.graphqlj.language.Parser;
+import org.sapzil.graphqlj.language.Source;
+import org.sapzil.graphqlj.language.ast.Document;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures loading and parsing a multi-megabyte file, as done at startup
+ * for persisted query manifests. "readString" reads the file into a String
+ * first; "map" parses a memory-mapped Source in place. The score is the
+ * time to load and parse the whole file.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LargeFileBenchmark {
+    @Param({ "4" })
+    public int megabytes;
+
+    private Path file;
+    private ParseOptions options;
+
+    @Setup
+    public void setUp() throws IOException {
+        // Concatenating corpus documents yields a valid multi-operation document.
+        String unit = Corpus.INTROSPECTION.build() + "\n" + Corpus.ARGUMENT_HEAVY_MUTATION.build() + "\n";
+        int target = megabytes << 20;
+        StringBuilder sb = new StringBuilder(target + unit.length());
+        while (sb.length() < target) {
+            sb.append(unit);
+        }
+        file = Files.createTempFile("graphqlj-bench", ".graphql");
+        Files.write(file, sb.toString().getBytes(StandardCharsets.UTF_8));
+        options = new ParseOptions();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public Document readString() throws IOException, GraphQLLanguageException {
+        String body = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        return Parser.parse(new Source(body, file.toString()), options);
+    }
+
+    @Benchmark
+    public Document map() throws IOException, GraphQLLanguageException {
+        return Parser.parse(Source.fromFile(file), options);
+    }
+}
@@ -0,0 +1,97 @@
+package org.sapzil.graphqlj.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sapzil.graphqlj.language.GraphQLLanguageException;
+import org.sapzil.graphqlj.language.Lexer;
+import org.sapzil.graphqlj.language.Source;
+import org.sapzil.graphqlj.language.Token;
+import org.sapzil.graphqlj.language.TokenKind;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Lexer throughput. Every invocation lexes the whole document,
+ * and the "tokens" counter reports tokens per second. nextToken
+ * materializes every token; advance only scans, as the parser does for
+ * punctuators. advanceUtf8 scans the document encoded as UTF-8 bytes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LexerBenchmark {
+    @Param
+    public Corpus corpus;
+
+    private Source source;
+    private Source utf8Source;
+
+    @Setup
+    public void setUp() {
+        String body = corpus.build();
+        source = new Source(body);
+        utf8Source = Source.fromUtf8(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long tokens;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            tokens = 0;
+        }
+    }
+
+    @Benchmark
+    public void nextToken(Counters counters, Blackhole bh) throws GraphQLLanguageException {
+        Lexer lexer = new Lexer(source);
+        long tokens = 0;
+        Token token;
+        do {
+            token = lexer.nextToken();
+            bh.consume(token);
+            tokens++;
+        } while (token.getKind() != TokenKind.EOF);
+        counters.tokens += tokens;
+    }
+
+    @Benchmark
+    public int advance(Counters counters) throws GraphQLLanguageException {
+        return scan(source, counters);
+    }
+
+    @Benchmark
+    public int advanceUtf8(Counters counters) throws GraphQLLanguageException {
+        return scan(utf8Source, counters);
+    }
+
+    private static int scan(Source source, Counters counters) throws GraphQLLanguageException {
+        Lexer lexer = new Lexer(source);
+        int tokens = 0;
+        int ends = 0;
+        do {
+            tokens++;
+            ends += lexer.getEnd();
+        } while (lexer.advance() != TokenKind.EOF);
+        counters.tokens += tokens;
+        return ends;
+    }
+}
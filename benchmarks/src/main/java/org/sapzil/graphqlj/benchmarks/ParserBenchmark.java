@@ -0,0 +1,76 @@
+package org.sapzil.graphqlj.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sapzil.graphqlj.language.GraphQLLanguageException;
+import org.sapzil.graphqlj.language.ParseOptions;
+import org.sapzil.graphqlj.language.Parser;
+import org.sapzil.graphqlj.language.Source;
+import org.sapzil.graphqlj.language.ast.Document;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Parser.parse throughput. The primary score is documents per
+ * second; the "bytes" counter reports source characters (or bytes, for
+ * UTF-8 input) per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParserBenchmark {
+    @Param
+    public Corpus corpus;
+
+    private Source source;
+    private Source utf8Source;
+    private ParseOptions options;
+
+    @Setup
+    public void setUp() {
+        String body = corpus.build();
+        source = new Source(body);
+        utf8Source = Source.fromUtf8(body.getBytes(StandardCharsets.UTF_8));
+        options = new ParseOptions();
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+
+    @Benchmark
+    public Document parse(Counters counters) throws GraphQLLanguageException {
+        Document document = Parser.parse(source, options);
+        counters.bytes += source.length();
+        return document;
+    }
+
+    @Benchmark
+    public Document parseUtf8(Counters counters) throws GraphQLLanguageException {
+        Document document = Parser.parse(utf8Source, options);
+        counters.bytes += utf8Source.length();
+        return document;
+    }
+}
@@ -0,0 +1,70 @@
+package org.sapzil.graphqlj.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sapzil.graphqlj.language.GraphQLLanguageException;
+import org.sapzil.graphqlj.language.ParseOptions;
+import org.sapzil.graphqlj.language.Parser;
+import org.sapzil.graphqlj.language.Printer;
+import org.sapzil.graphqlj.language.Source;
+import org.sapzil.graphqlj.language.ast.Document;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Printer throughput on a parsed document, in documents per
+ * second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PrinterBenchmark {
+    @Param
+    public Corpus corpus;
+
+    private Document document;
+    private Printer compact;
+    private Printer pretty;
+    private StringBuilder sb;
+
+    @Setup
+    public void setUp() throws GraphQLLanguageException {
+        document = Parser.parse(new Source(corpus.build()), new ParseOptions());
+        compact = new Printer(false);
+        pretty = new Printer(true);
+        sb = new StringBuilder();
+    }
+
+    @Benchmark
+    public StringBuilder printCompact() throws IOException {
+        sb.setLength(0);
+        compact.print(document, sb);
+        return sb;
+    }
+
+    @Benchmark
+    public StringBuilder printPretty() throws IOException {
+        sb.setLength(0);
+        pretty.print(document, sb);
+        return sb;
+    }
+
+    @Benchmark
+    public ByteBuffer printUtf8() {
+        return compact.printUtf8(document);
+    }
+}
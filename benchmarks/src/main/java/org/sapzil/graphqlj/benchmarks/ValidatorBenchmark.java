@@ -0,0 +1,52 @@
+package org.sapzil.graphqlj.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sapzil.graphqlj.language.GraphQLLanguageException;
+import org.sapzil.graphqlj.language.ParseOptions;
+import org.sapzil.graphqlj.language.Parser;
+import org.sapzil.graphqlj.language.Source;
+import org.sapzil.graphqlj.language.ast.Document;
+import org.sapzil.graphqlj.validation.ValidationError;
+import org.sapzil.graphqlj.validation.Validator;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Validator throughput on a parsed document, in documents per
+ * second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ValidatorBenchmark {
+    @Param
+    public Corpus corpus;
+
+    private Document document;
+    private Validator validator;
+
+    @Setup
+    public void setUp() throws GraphQLLanguageException {
+        document = Parser.parse(new Source(corpus.build()), new ParseOptions());
+        validator = new Validator();
+    }
+
+    @Benchmark
+    public List<ValidationError> validate() {
+        return validator.validate(document);
+    }
+}
@@ -0,0 +1,70 @@
+package org.sapzil.graphqlj.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sapzil.graphqlj.language.GraphQLLanguageException;
+import org.sapzil.graphqlj.language.ParseOptions;
+import org.sapzil.graphqlj.language.Parser;
+import org.sapzil.graphqlj.language.Source;
+import org.sapzil.graphqlj.language.VisitAction;
+import org.sapzil.graphqlj.language.Visitor;
+import org.sapzil.graphqlj.language.Walker;
+import org.sapzil.graphqlj.language.ast.Document;
+import org.sapzil.graphqlj.language.ast.Node;
+import org.sapzil.graphqlj.language.ast.NodeKind;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a full Walker traversal of a parsed document, in documents per
+ * second. The visitor only counts fields, so the score is dominated by
+ * the walk itself.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WalkerBenchmark {
+    @Param
+    public Corpus corpus;
+
+    private Document document;
+    private Walker walker;
+    private FieldCounter counter;
+
+    @Setup
+    public void setUp() throws GraphQLLanguageException {
+        document = Parser.parse(new Source(corpus.build()), new ParseOptions());
+        walker = new Walker();
+        counter = new FieldCounter();
+    }
+
+    @Benchmark
+    public int walk() {
+        counter.fields = 0;
+        walker.traverse(document, counter);
+        return counter.fields;
+    }
+
+    static final class FieldCounter extends Visitor {
+        int fields;
+
+        @Override public VisitAction enter(Node node, Walker walker) {
+            if (node.getKind() == NodeKind.FIELD) {
+                fields++;
+            }
+            return VisitAction.CONTINUE;
+        }
+    }
+}
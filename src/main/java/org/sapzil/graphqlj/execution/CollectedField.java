@@ -0,0 +1,96 @@
+package org.sapzil.graphqlj.execution;
+
+import org.sapzil.graphqlj.language.ast.Argument;
+import org.sapzil.graphqlj.language.ast.Directive;
+import org.sapzil.graphqlj.language.ast.Field;
+
+import java.util.List;
+
+/**
+ * The fields of a flattened selection set that share a response key and
+ * the conditions under which they are selected, merged into one entry.
+ *
+ * The entry applies to an object if its type matches every type
+ * condition, listed once each in the order first met, and every
+ * condition directive (a skip or include directive whose value is a
+ * variable) passes. Fields whose conditions differ are kept as separate
+ * entries even if they share a response key; when several apply to the
+ * same object, the field takes the position of the first and the
+ * selections of all of them.
+ */
+public final class CollectedField {
+    private final String responseKey;
+    private final List<String> typeConditions;
+    private final List<Directive> conditions;
+    private final List<Field> fields;
+    private final List<CollectedField> children;
+
+    CollectedField(String responseKey, List<String> typeConditions, List<Directive> conditions,
+                   List<Field> fields, List<CollectedField> children) {
+        this.responseKey = responseKey;
+        this.typeConditions = typeConditions;
+        this.conditions = conditions;
+        this.fields = fields;
+        this.children = children;
+    }
+
+    /**
+     * Returns the alias of the fields, or their name if they are not
+     * aliased.
+     */
+    public String getResponseKey() {
+        return responseKey;
+    }
+
+    /**
+     * Returns the name of the first field. Fields merged under one response
+     * key are expected to have the same name and arguments.
+     */
+    public String getName() {
+        return fields.get(0).getName().getValue();
+    }
+
+    /**
+     * Returns the arguments of the first field.
+     */
+    public List<Argument> getArguments() {
+        return fields.get(0).getArguments();
+    }
+
+    public List<String> getTypeConditions() {
+        return typeConditions;
+    }
+
+    public List<Directive> getConditions() {
+        return conditions;
+    }
+
+    /**
+     * Returns true if the entry applies to every object.
+     */
+    public boolean isUnconditional() {
+        return typeConditions.isEmpty() && conditions.isEmpty();
+    }
+
+    /**
+     * Returns the field nodes merged into this entry, in document order.
+     */
+    public List<Field> getFields() {
+        return fields;
+    }
+
+    /**
+     * Returns the merged selections of the fields, or null if they have no
+     * selection set.
+     */
+    public List<CollectedField> getChildren() {
+        return children;
+    }
+
+    @Override public String toString() {
+        return "CollectedField{" + responseKey +
+                (typeConditions.isEmpty() ? "" : " on " + typeConditions) +
+                (conditions.isEmpty() ? "" : " if " + conditions.size() + " conditions") +
+                (children != null ? ", children=" + children : "") + "}";
+    }
+}
@@ -0,0 +1,33 @@
+package org.sapzil.graphqlj.execution;
+
+import org.sapzil.graphqlj.language.ast.OperationDefinition;
+
+import java.util.List;
+
+/**
+ * An operation with its fragments inlined, see Flattener.
+ */
+public final class FlattenedOperation {
+    private final OperationDefinition operation;
+    private final List<CollectedField> fields;
+
+    FlattenedOperation(OperationDefinition operation, List<CollectedField> fields) {
+        this.operation = operation;
+        this.fields = fields;
+    }
+
+    public OperationDefinition getOperation() {
+        return operation;
+    }
+
+    /**
+     * Returns the root fields of the operation.
+     */
+    public List<CollectedField> getFields() {
+        return fields;
+    }
+
+    @Override public String toString() {
+        return "FlattenedOperation{" + fields + "}";
+    }
+}
@@ -0,0 +1,69 @@
+package org.sapzil.graphqlj.execution;
+
+import org.sapzil.graphqlj.language.DocumentKeyedCache;
+import org.sapzil.graphqlj.language.ast.Document;
+
+/**
+ * A cache of flattened operations keyed by document identity and
+ * operation name.
+ *
+ * Flattening only folds constant directives, so the result depends on
+ * the document alone and can be shared by every request that executes
+ * it. Documents are held weakly, as in ValidationCache: put a
+ * DocumentCache in front so that equal queries share one Document, and
+ * an entry goes away once its document is no longer referenced.
+ */
+public final class FlattenedOperationCache {
+    // The operations only refer to nodes below the document, so they do
+    // not keep their key alive.
+    private final DocumentKeyedCache<String, FlattenedOperation> operations =
+            new DocumentKeyedCache<>(Integer.MAX_VALUE);
+
+    /**
+     * Returns the named operation of the document flattened, or its only
+     * operation if the name is null, flattening it if it has not been
+     * seen before.
+     *
+     * Concurrent misses for the same operation may each flatten it; the
+     * results are equivalent, and the last one is kept.
+     *
+     * @throws IllegalArgumentException if there is no such operation, or
+     * it expands to more selections than Flattener allows
+     */
+    public FlattenedOperation get(Document document, String operationName) {
+        FlattenedOperation operation = operations.get(document, operationName);
+        if (operation != null) {
+            return operation;
+        }
+        operation = Flattener.flatten(document, operationName);
+        operations.put(document, operationName, operation);
+        return operation;
+    }
+
+    /**
+     * Returns the cached flattened operation, or null.
+     */
+    public FlattenedOperation getIfPresent(Document document, String operationName) {
+        return operations.get(document, operationName);
+    }
+
+    public void clear() {
+        operations.clear();
+    }
+
+    /**
+     * Returns the number of documents with cached operations, including
+     * those that have been collected but not yet expunged.
+     */
+    public int size() {
+        return operations.size();
+    }
+
+    public long getHitCount() {
+        return operations.getHitCount();
+    }
+
+    public long getMissCount() {
+        return operations.getMissCount();
+    }
+}
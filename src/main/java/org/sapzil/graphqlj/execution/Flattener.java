@@ -0,0 +1,477 @@
+package org.sapzil.graphqlj.execution;
+
+import org.sapzil.graphqlj.language.SelectedOperation;
+import org.sapzil.graphqlj.language.VisitAction;
+import org.sapzil.graphqlj.language.Visitor;
+import org.sapzil.graphqlj.language.Walker;
+import org.sapzil.graphqlj.language.ast.BooleanValue;
+import org.sapzil.graphqlj.language.ast.Directive;
+import org.sapzil.graphqlj.language.ast.Document;
+import org.sapzil.graphqlj.language.ast.Field;
+import org.sapzil.graphqlj.language.ast.FragmentDefinition;
+import org.sapzil.graphqlj.language.ast.FragmentSpread;
+import org.sapzil.graphqlj.language.ast.InlineFragment;
+import org.sapzil.graphqlj.language.ast.Node;
+import org.sapzil.graphqlj.language.ast.NodeKind;
+import org.sapzil.graphqlj.language.ast.OperationDefinition;
+import org.sapzil.graphqlj.language.ast.Selection;
+import org.sapzil.graphqlj.language.ast.SelectionSet;
+import org.sapzil.graphqlj.language.ast.Value;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Turns an operation into a tree of CollectedFields, so that collecting
+ * the fields to execute for an object becomes a walk over a list.
+ *
+ * Fragment spreads and inline fragments are replaced by their fields,
+ * which keep the type conditions of the fragments they came from. Fields
+ * with the same response key and the same conditions are merged, and
+ * their selection sets are flattened together. Skip and include
+ * directives with a constant value are applied and dropped; those whose
+ * value is a variable are kept as conditions on the fields below them.
+ *
+ * Without a schema, type conditions cannot be resolved, so fields under
+ * different type conditions stay separate. The type conditions of a field
+ * are a set: a type met again adds nothing, and the order in which types
+ * are met does not matter. Spreads of unknown fragments and of fragments
+ * that spread themselves, directly or not, are ignored. A fragment spread
+ * again under the same conditions adds nothing and is not inlined again,
+ * so the work is proportional to the size of the flattened operation
+ * rather than to the number of spreads.
+ *
+ * That size can still grow exponentially with the document, when each
+ * fragment spreads the next under conditions the others do not share, so
+ * flattening gives up once it has visited a bounded number of selections.
+ *
+ * The selection sets are flattened level by level without recursion.
+ */
+public final class Flattener {
+    /**
+     * The default number of selections flattening may visit, counting each
+     * selection once for every time its fragment is inlined.
+     */
+    public static final int DEFAULT_MAX_SELECTIONS = 100000;
+
+    private Flattener() {
+    }
+
+    /**
+     * Flattens the named operation of the document, or its only operation
+     * if the name is null, visiting at most DEFAULT_MAX_SELECTIONS
+     * selections.
+     *
+     * @throws IllegalArgumentException if there is no such operation, or
+     * it expands to more selections
+     */
+    public static FlattenedOperation flatten(Document document, String operationName) {
+        return flatten(document, operationName, DEFAULT_MAX_SELECTIONS);
+    }
+
+    /**
+     * Flattens the named operation of the document, or its only operation
+     * if the name is null, visiting at most maxSelections selections.
+     *
+     * @throws IllegalArgumentException if there is no such operation, or
+     * it expands to more selections
+     */
+    public static FlattenedOperation flatten(Document document, String operationName, int maxSelections) {
+        SelectedOperation selected = SelectedOperation.select(document, operationName);
+        Map<String, FragmentDefinition> fragments = selected.getFragments();
+        fragments.keySet().removeAll(findCycles(fragments));
+        return new Flattening(fragments, maxSelections).run(selected.getOperation());
+    }
+
+    /**
+     * Returns fragments that spread themselves, directly or not, such that
+     * the fragments left form no cycle.
+     *
+     * A depth-first walk of the spread graph finds a back edge in every
+     * cycle; the fragments on the path it closes are returned.
+     */
+    private static Set<String> findCycles(Map<String, FragmentDefinition> fragments) {
+        final Map<String, List<String>> spreads = new HashMap<>();
+        for (FragmentDefinition fragment : fragments.values()) {
+            final List<String> names = new ArrayList<>();
+            Walker.walk(fragment.getSelectionSet(), new Visitor() {
+                @Override public VisitAction enter(Node node, Walker walker) {
+                    switch (node.getKind()) {
+                    case FRAGMENT_SPREAD:
+                        names.add(((FragmentSpread) node).getName().getValue());
+                        return VisitAction.SKIP;
+                    case SELECTION_SET:
+                    case FIELD:
+                    case INLINE_FRAGMENT:
+                        return VisitAction.CONTINUE;
+                    default:
+                        return VisitAction.SKIP;
+                    }
+                }
+            });
+            spreads.put(fragment.getName().getValue(), names);
+        }
+
+        Set<String> cyclic = new HashSet<>();
+        Set<String> visited = new HashSet<>();
+        // The path: the fragments entered, and how many of their spreads
+        // have been followed.
+        List<String> path = new ArrayList<>();
+        List<Integer> followed = new ArrayList<>();
+        Set<String> onPath = new HashSet<>();
+        for (String root : spreads.keySet()) {
+            if (!visited.add(root)) {
+                continue;
+            }
+            path.add(root);
+            followed.add(0);
+            onPath.add(root);
+            while (!path.isEmpty()) {
+                int top = path.size() - 1;
+                List<String> targets = spreads.get(path.get(top));
+                int index = followed.get(top);
+                if (index == targets.size()) {
+                    onPath.remove(path.remove(top));
+                    followed.remove(top);
+                    continue;
+                }
+                followed.set(top, index + 1);
+                String target = targets.get(index);
+                if (onPath.contains(target)) {
+                    cyclic.addAll(path.subList(path.lastIndexOf(target), path.size()));
+                } else if (spreads.containsKey(target) && visited.add(target)) {
+                    path.add(target);
+                    followed.add(0);
+                    onPath.add(target);
+                }
+            }
+        }
+        return cyclic;
+    }
+
+    private static final class Flattening {
+        private final Map<String, FragmentDefinition> fragments;
+        private final int maxSelections;
+        // The selections visited so far, over all levels.
+        private int selectionCount;
+
+        Flattening(Map<String, FragmentDefinition> fragments, int maxSelections) {
+            this.fragments = fragments;
+            this.maxSelections = maxSelections;
+        }
+
+        FlattenedOperation run(OperationDefinition operation) {
+            List<Group> roots = collect(Collections.singletonList(operation.getSelectionSet()));
+            // Every group, parents before children.
+            List<Group> groups = new ArrayList<>(roots);
+            for (int i = 0; i < groups.size(); i++) {
+                Group group = groups.get(i);
+                List<SelectionSet> selectionSets = null;
+                for (int j = 0; j < group.fields.size(); j++) {
+                    SelectionSet selectionSet = group.fields.get(j).getSelectionSet();
+                    if (selectionSet != null) {
+                        if (selectionSets == null) {
+                            selectionSets = new ArrayList<>(group.fields.size());
+                        }
+                        selectionSets.add(selectionSet);
+                    }
+                }
+                if (selectionSets != null) {
+                    group.children = collect(selectionSets);
+                    groups.addAll(group.children);
+                }
+            }
+            for (int i = groups.size() - 1; i >= 0; i--) {
+                groups.get(i).build();
+            }
+            return new FlattenedOperation(operation, results(roots));
+        }
+
+        /**
+         * Collects the fields of the selection sets, which belong to fields
+         * merged under one response key, in document order.
+         */
+        private List<Group> collect(List<SelectionSet> selectionSets) {
+            List<Group> groups = new ArrayList<>();
+            // The groups by response key and conditions.
+            Map<List<Object>, Group> groupsByKey = new HashMap<>();
+            // The fragments inlined so far, with their conditions.
+            Set<List<Object>> inlined = new HashSet<>();
+            ArrayDeque<Scope> stack = new ArrayDeque<>();
+            for (SelectionSet selectionSet : selectionSets) {
+                stack.push(new Scope(selectionSet.getSelections(), Conditions.NONE));
+                while (!stack.isEmpty()) {
+                    Scope scope = stack.peek();
+                    if (scope.index == scope.selections.size()) {
+                        stack.pop();
+                        continue;
+                    }
+                    if (++selectionCount > maxSelections) {
+                        throw new IllegalArgumentException("Operation expands to more than " + maxSelections + " selections.");
+                    }
+                    Selection selection = scope.selections.get(scope.index++);
+                    switch (selection.getKind()) {
+                    case FIELD: {
+                        Field field = (Field) selection;
+                        if (!isExcluded(field.getDirectives())) {
+                            addField(field, scope.conditions.withDirectives(field.getDirectives()), groups, groupsByKey);
+                        }
+                        break;
+                    }
+                    case INLINE_FRAGMENT: {
+                        InlineFragment fragment = (InlineFragment) selection;
+                        if (!isExcluded(fragment.getDirectives())) {
+                            Conditions conditions = scope.conditions
+                                    .withDirectives(fragment.getDirectives())
+                                    .withTypeCondition(fragment.getTypeCondition() != null
+                                            ? fragment.getTypeCondition().getValue() : null);
+                            stack.push(new Scope(fragment.getSelectionSet().getSelections(), conditions));
+                        }
+                        break;
+                    }
+                    default: {
+                        FragmentSpread spread = (FragmentSpread) selection;
+                        String name = spread.getName().getValue();
+                        FragmentDefinition fragment = fragments.get(name);
+                        if (fragment == null || isExcluded(spread.getDirectives())) {
+                            break;
+                        }
+                        Conditions conditions = scope.conditions
+                                .withDirectives(spread.getDirectives())
+                                .withTypeCondition(fragment.getTypeCondition().getValue());
+                        if (inlined.add(Arrays.asList(name, conditions))) {
+                            stack.push(new Scope(fragment.getSelectionSet().getSelections(), conditions));
+                        }
+                        break;
+                    }
+                    }
+                }
+            }
+            return groups;
+        }
+
+        private static void addField(Field field, Conditions conditions, List<Group> groups, Map<List<Object>, Group> groupsByKey) {
+            String responseKey = (field.getAlias() != null ? field.getAlias() : field.getName()).getValue();
+            List<Object> key = Arrays.asList(responseKey, conditions);
+            Group group = groupsByKey.get(key);
+            if (group == null) {
+                group = new Group(responseKey, conditions);
+                groupsByKey.put(key, group);
+                groups.add(group);
+            }
+            group.add(field);
+        }
+    }
+
+    /**
+     * Returns true if a constant skip or include directive excludes the
+     * selection.
+     */
+    private static boolean isExcluded(List<Directive> directives) {
+        for (int i = 0; i < directives.size(); i++) {
+            Directive directive = directives.get(i);
+            Value value = directive.getValue();
+            if (value == null || value.getKind() != NodeKind.BOOLEAN_VALUE) {
+                continue;
+            }
+            boolean constant = ((BooleanValue) value).getValue();
+            String name = directive.getName().getValue();
+            if (name.equals("skip") && constant || name.equals("include") && !constant) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isCondition(Directive directive) {
+        String name = directive.getName().getValue();
+        return (name.equals("skip") || name.equals("include"))
+                && directive.getValue() != null && directive.getValue().getKind() == NodeKind.VARIABLE;
+    }
+
+    private static List<CollectedField> results(List<Group> groups) {
+        CollectedField[] results = new CollectedField[groups.size()];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = groups.get(i).result;
+        }
+        return Collections.unmodifiableList(Arrays.asList(results));
+    }
+
+    /**
+     * The type conditions and condition directives a selection is under.
+     * Type conditions are kept in the order they were first met, but
+     * compared as a set. Directives are compared by identity, so two
+     * spreads of the same fragment are under equal conditions only if the
+     * same directive nodes apply to both.
+     */
+    private static final class Conditions {
+        static final Conditions NONE = new Conditions(new String[0], 0, new Directive[0]);
+
+        final String[] typeConditions;
+        // The sum of the mixed hashes of the type conditions, whatever their
+        // order.
+        final int typeConditionsHash;
+        final Directive[] directives;
+
+        Conditions(String[] typeConditions, int typeConditionsHash, Directive[] directives) {
+            this.typeConditions = typeConditions;
+            this.typeConditionsHash = typeConditionsHash;
+            this.directives = directives;
+        }
+
+        Conditions withTypeCondition(String typeCondition) {
+            if (typeCondition == null || hasTypeCondition(typeCondition)) {
+                return this;
+            }
+            int length = typeConditions.length;
+            String[] extended = Arrays.copyOf(typeConditions, length + 1);
+            extended[length] = typeCondition;
+            return new Conditions(extended, typeConditionsHash + mix(typeCondition.hashCode()), directives);
+        }
+
+        /**
+         * Spreads the bits of a hash, so that sums of hashes of similar
+         * names, which differ in few bits, rarely collide.
+         */
+        private static int mix(int hash) {
+            hash ^= hash >>> 16;
+            hash *= 0x85ebca6b;
+            hash ^= hash >>> 13;
+            hash *= 0xc2b2ae35;
+            return hash ^ hash >>> 16;
+        }
+
+        private boolean hasTypeCondition(String typeCondition) {
+            // The innermost is the most likely to be met again.
+            for (int i = typeConditions.length - 1; i >= 0; i--) {
+                if (typeConditions[i].equals(typeCondition)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        Conditions withDirectives(List<Directive> candidates) {
+            Directive[] extended = null;
+            for (int i = 0; i < candidates.size(); i++) {
+                Directive directive = candidates.get(i);
+                if (isCondition(directive)) {
+                    int length = extended != null ? extended.length : directives.length;
+                    extended = Arrays.copyOf(extended != null ? extended : directives, length + 1);
+                    extended[length] = directive;
+                }
+            }
+            return extended != null ? new Conditions(typeConditions, typeConditionsHash, extended) : this;
+        }
+
+        List<String> typeConditionList() {
+            return typeConditions.length == 0
+                    ? Collections.emptyList()
+                    : Collections.unmodifiableList(Arrays.asList(typeConditions));
+        }
+
+        List<Directive> directiveList() {
+            return directives.length == 0
+                    ? Collections.emptyList()
+                    : Collections.unmodifiableList(Arrays.asList(directives));
+        }
+
+        @Override public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Conditions)) {
+                return false;
+            }
+            Conditions other = (Conditions) o;
+            if (typeConditionsHash != other.typeConditionsHash
+                    || typeConditions.length != other.typeConditions.length
+                    || !Arrays.equals(directives, other.directives)) {
+                return false;
+            }
+            // Neither has a type condition twice, so containing all of the
+            // other's makes them equal.
+            for (String typeCondition : other.typeConditions) {
+                if (!hasTypeCondition(typeCondition)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override public int hashCode() {
+            return 31 * typeConditionsHash + Arrays.hashCode(directives);
+        }
+    }
+
+    /**
+     * The fields of one response key and conditions, until it is built.
+     */
+    private static final class Group {
+        final String responseKey;
+        final Conditions conditions;
+        final List<Field> fields = new ArrayList<>(1);
+        // The fields again, for lookups once there are many of them.
+        private Set<Field> fieldSet;
+        // Null if the fields have no selection sets.
+        List<Group> children;
+        CollectedField result;
+
+        Group(String responseKey, Conditions conditions) {
+            this.responseKey = responseKey;
+            this.conditions = conditions;
+        }
+
+        /**
+         * Adds a field unless it was already reached by another path.
+         */
+        void add(Field field) {
+            if (fieldSet != null) {
+                if (fieldSet.add(field)) {
+                    fields.add(field);
+                }
+                return;
+            }
+            for (int i = 0; i < fields.size(); i++) {
+                if (fields.get(i) == field) {
+                    return;
+                }
+            }
+            fields.add(field);
+            if (fields.size() > 8) {
+                fieldSet = Collections.newSetFromMap(new IdentityHashMap<>());
+                fieldSet.addAll(fields);
+            }
+        }
+
+        /**
+         * Creates the result, once the results of the children exist.
+         */
+        void build() {
+            result = new CollectedField(responseKey, conditions.typeConditionList(), conditions.directiveList(),
+                    Collections.unmodifiableList(fields), children != null ? results(children) : null);
+        }
+    }
+
+    /**
+     * A list of selections being collected, and how far it has been.
+     */
+    private static final class Scope {
+        final List<Selection> selections;
+        final Conditions conditions;
+        int index;
+
+        Scope(List<Selection> selections, Conditions conditions) {
+            this.selections = selections;
+            this.conditions = conditions;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package org.sapzil.graphqlj.language;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * An unmodifiable list over an exactly sized array, used by the parser for
+ * lists of two or more nodes. Wrapping the array directly avoids the
+ * spare capacity of an ArrayList and the extra wrapper objects of
+ * Collections.unmodifiableList(Arrays.asList(...)).
+ */
+final class ArrayNodeList<E> extends AbstractList<E> implements RandomAccess {
+    private final Object[] elements;
+
+    ArrayNodeList(Object[] elements) {
+        this.elements = elements;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override public E get(int index) {
+        return (E) elements[index];
+    }
+
+    @Override public int size() {
+        return elements.length;
+    }
+}
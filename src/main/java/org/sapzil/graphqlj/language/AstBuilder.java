@@ -0,0 +1,250 @@
+package org.sapzil.graphqlj.language;
+
+import org.sapzil.graphqlj.language.ast.Argument;
+import org.sapzil.graphqlj.language.ast.ArrayValue;
+import org.sapzil.graphqlj.language.ast.BaseType;
+import org.sapzil.graphqlj.language.ast.BooleanValue;
+import org.sapzil.graphqlj.language.ast.Definition;
+import org.sapzil.graphqlj.language.ast.Directive;
+import org.sapzil.graphqlj.language.ast.Document;
+import org.sapzil.graphqlj.language.ast.EnumValue;
+import org.sapzil.graphqlj.language.ast.Field;
+import org.sapzil.graphqlj.language.ast.FloatValue;
+import org.sapzil.graphqlj.language.ast.FragmentDefinition;
+import org.sapzil.graphqlj.language.ast.FragmentSpread;
+import org.sapzil.graphqlj.language.ast.InlineFragment;
+import org.sapzil.graphqlj.language.ast.IntValue;
+import org.sapzil.graphqlj.language.ast.ListType;
+import org.sapzil.graphqlj.language.ast.Name;
+import org.sapzil.graphqlj.language.ast.Node;
+import org.sapzil.graphqlj.language.ast.NodeKind;
+import org.sapzil.graphqlj.language.ast.NonNullType;
+import org.sapzil.graphqlj.language.ast.ObjectField;
+import org.sapzil.graphqlj.language.ast.ObjectValue;
+import org.sapzil.graphqlj.language.ast.OperationDefinition;
+import org.sapzil.graphqlj.language.ast.Selection;
+import org.sapzil.graphqlj.language.ast.SelectionSet;
+import org.sapzil.graphqlj.language.ast.StringValue;
+import org.sapzil.graphqlj.language.ast.Type;
+import org.sapzil.graphqlj.language.ast.Value;
+import org.sapzil.graphqlj.language.ast.Variable;
+import org.sapzil.graphqlj.language.ast.VariableDefinition;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Builds an ast Document from the nodes reported by Parser.
+ *
+ * Nodes, lists and the other parts of the nodes being built are collected
+ * on a single stack shared by all nesting levels: a node's parts are
+ * pushed after its mark is taken, and replaced by the node when it ends.
+ */
+final class AstBuilder extends NodeSink<Document> {
+    private final ParseOptions options;
+    // The Source recorded in nodes; null if sources are not recorded.
+    private final Source nodeSource;
+    private Object[] stack = new Object[32];
+    private int stackSize;
+
+    AstBuilder(Source source, ParseOptions options) {
+        this.options = options;
+        this.nodeSource = options.noLocation() || options.noSource() ? null : source;
+    }
+
+    /**
+     * Returns the packed range of a node.
+     */
+    private long loc(int start, int end) {
+        if (options.noLocation()) {
+            return Location.NONE;
+        }
+        return Location.pack(start, end);
+    }
+
+    private void push(Object node) {
+        if (stackSize == stack.length) {
+            stack = Arrays.copyOf(stack, stackSize * 2);
+        }
+        stack[stackSize++] = node;
+    }
+
+    /**
+     * Pops the parts pushed since the stack had the given size, discarding
+     * them.
+     */
+    private void discard(int base) {
+        Arrays.fill(stack, base, stackSize, null);
+        stackSize = base;
+    }
+
+    /**
+     * Pops the nodes pushed since the stack had the given size into an
+     * unmodifiable, exactly sized list. Empty and single-element lists are
+     * the shared empty list and a singleton list.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> List<T> popList(int base) {
+        int size = stackSize - base;
+        List<T> list;
+        switch (size) {
+        case 0:
+            return Collections.emptyList();
+        case 1:
+            list = Collections.singletonList((T) stack[base]);
+            break;
+        default:
+            list = new ArrayNodeList<>(Arrays.copyOfRange(stack, base, stackSize));
+            break;
+        }
+        // Clear the popped slots so that the builder does not retain nodes.
+        discard(base);
+        return list;
+    }
+
+    @Override
+    int begin(NodeKind kind, int start) {
+        return stackSize;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    void end(NodeKind kind, int mark, int start, int end) {
+        Object[] stack = this.stack;
+        long loc = loc(start, end);
+        Node node;
+        switch (kind) {
+        case DOCUMENT:
+            List<Definition> definitions = popList(mark);
+            node = new Document(nodeSource, loc, definitions);
+            break;
+        case OPERATION_DEFINITION:
+            node = new OperationDefinition(nodeSource, loc, (String) stack[mark], (Name) stack[mark + 1],
+                    (List<VariableDefinition>) stack[mark + 2], (List<Directive>) stack[mark + 3],
+                    (SelectionSet) stack[mark + 4]);
+            break;
+        case VARIABLE_DEFINITION:
+            node = new VariableDefinition(nodeSource, loc, (Variable) stack[mark], (Type) stack[mark + 1],
+                    (Value) stack[mark + 2]);
+            break;
+        case VARIABLE:
+            node = new Variable(nodeSource, loc, (Name) stack[mark]);
+            break;
+        case SELECTION_SET:
+            List<Selection> selections = popList(mark);
+            node = new SelectionSet(nodeSource, loc, selections);
+            break;
+        case FIELD:
+            // An unaliased field has a single name.
+            int parts = mark + (stack[mark + 1] instanceof Name ? 1 : 0);
+            node = new Field(nodeSource, loc, parts > mark ? (Name) stack[mark] : null, (Name) stack[parts],
+                    (List<Argument>) stack[parts + 1], (List<Directive>) stack[parts + 2],
+                    parts + 3 < stackSize ? (SelectionSet) stack[parts + 3] : null);
+            break;
+        case ARGUMENT:
+            node = new Argument(nodeSource, loc, (Name) stack[mark], (Value) stack[mark + 1]);
+            break;
+        case FRAGMENT_SPREAD:
+            node = new FragmentSpread(nodeSource, loc, (Name) stack[mark], (List<Directive>) stack[mark + 1]);
+            break;
+        case INLINE_FRAGMENT:
+            node = new InlineFragment(nodeSource, loc, (Name) stack[mark], (List<Directive>) stack[mark + 1],
+                    (SelectionSet) stack[mark + 2]);
+            break;
+        case FRAGMENT_DEFINITION:
+            node = new FragmentDefinition(nodeSource, loc, (Name) stack[mark], (Name) stack[mark + 1],
+                    (List<Directive>) stack[mark + 2], (SelectionSet) stack[mark + 3]);
+            break;
+        case ARRAY_VALUE:
+            List<Value> values = popList(mark);
+            node = new ArrayValue(nodeSource, loc, values);
+            break;
+        case OBJECT_VALUE:
+            List<ObjectField> fields = popList(mark);
+            node = new ObjectValue(nodeSource, loc, fields);
+            break;
+        case OBJECT_FIELD:
+            node = new ObjectField(nodeSource, loc, (Name) stack[mark], (Value) stack[mark + 1]);
+            break;
+        case DIRECTIVE:
+            node = new Directive(nodeSource, loc, (Name) stack[mark], (Value) stack[mark + 1]);
+            break;
+        case BASE_TYPE:
+            node = new BaseType(nodeSource, loc, (Name) stack[mark]);
+            break;
+        case LIST_TYPE:
+            node = new ListType(nodeSource, loc, (Type) stack[mark]);
+            break;
+        default:
+            throw new IllegalArgumentException(kind.toString());
+        }
+        discard(mark);
+        push(node);
+    }
+
+    @Override
+    void name(int start, int end, String value) {
+        push(new Name(nodeSource, loc(start, end), value));
+    }
+
+    @Override
+    void operation(String operation) {
+        push(operation);
+    }
+
+    @Override
+    void literal(NodeKind kind, Lexer lexer) {
+        long loc = loc(lexer.getStart(), lexer.getEnd());
+        // Literals recorded with their source are decoded on first access.
+        String value = nodeSource != null ? null : lexer.getValue();
+        switch (kind) {
+        case INT_VALUE:
+            push(value == null ? new IntValue(nodeSource, loc) : new IntValue(null, loc, value));
+            break;
+        case FLOAT_VALUE:
+            push(value == null ? new FloatValue(nodeSource, loc) : new FloatValue(null, loc, value));
+            break;
+        default:
+            push(value == null ? new StringValue(nodeSource, loc) : new StringValue(null, loc, value));
+            break;
+        }
+    }
+
+    @Override
+    void value(NodeKind kind, int start, int end, String value) {
+        if (kind == NodeKind.BOOLEAN_VALUE) {
+            push(new BooleanValue(nodeSource, loc(start, end), value == NameTable.TRUE));
+        } else {
+            push(new EnumValue(nodeSource, loc(start, end), value));
+        }
+    }
+
+    @Override
+    int beginList() {
+        return stackSize;
+    }
+
+    @Override
+    void endList(int mark) {
+        push(popList(mark));
+    }
+
+    @Override
+    void absent() {
+        push(null);
+    }
+
+    @Override
+    void wrap(NodeKind kind, int start, int end) {
+        int top = stackSize - 1;
+        stack[top] = new NonNullType(nodeSource, loc(start, end), (Type) stack[top]);
+    }
+
+    @Override
+    Document finish() {
+        Document document = (Document) stack[0];
+        discard(0);
+        return document;
+    }
+}
@@ -0,0 +1,291 @@
+package org.sapzil.graphqlj.language;
+
+import org.sapzil.graphqlj.language.ast.Document;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A cache of parsed documents keyed by their source text.
+ *
+ * Documents are immutable, so a cached Document is shared by every caller
+ * that parses the same body. Locations in a cached Document refer to the
+ * Source it was first parsed from, or for UTF-8 sources to a copy of it.
+ *
+ * UTF-8 sources are keyed by their bytes, so a hit neither decodes nor
+ * copies the input; only a miss copies the bytes, which are then both
+ * parsed and used as the new key. A
+ * document sent both as a String and as bytes is cached once for each.
+ *
+ * The cache is split into independently locked segments, each evicting its
+ * least recently used entries once it exceeds its share of the entry
+ * bound. The weight of an entry is the length of its body (in bytes, for
+ * UTF-8 sources), and the weight
+ * bound applies to the cache as a whole: once it is exceeded, the segment
+ * that grew evicts its own least recently used entries first, then the
+ * other segments do. Parse errors are not cached.
+ */
+public final class DocumentCache {
+    private static final int SEGMENT_COUNT = 16;
+
+    private final ParseOptions options;
+    private final Segment[] segments;
+    private final long maxWeight;
+    // The total weight of all segments.
+    private final AtomicLong weight = new AtomicLong();
+
+    /**
+     * Creates a cache holding at most maxEntries documents whose bodies
+     * are at most maxWeight long in total, counted in characters for
+     * String sources and in bytes for UTF-8 sources. A single body longer
+     * than maxWeight is parsed but never cached.
+     */
+    public DocumentCache(ParseOptions options, int maxEntries, long maxWeight) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        if (maxWeight < 1) {
+            throw new IllegalArgumentException("maxWeight must be positive");
+        }
+        this.options = options;
+        this.maxWeight = maxWeight;
+        int segmentCount = Math.min(SEGMENT_COUNT, Integer.highestOneBit(maxEntries));
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(Math.max(1, maxEntries / segmentCount));
+        }
+    }
+
+    /**
+     * Returns the document for the given source, parsing and caching it if
+     * it has not been seen before.
+     *
+     * Concurrent misses for the same body may each parse it; only one of
+     * the results is kept.
+     */
+    public Document parse(Source source) throws GraphQLLanguageException {
+        ByteBuffer bytes = source.utf8Bytes();
+        Object key = bytes != null ? new Utf8Key(bytes) : source.getBody();
+        Segment segment = segmentFor(key);
+        Document document = segment.get(key);
+        if (document != null) {
+            return document;
+        }
+        if (weigh(key) > maxWeight) {
+            // Never cached, so there is nothing to copy.
+            return Parser.parse(source, options);
+        }
+        Source parsed = source;
+        if (bytes != null) {
+            // The cached nodes refer to their Source, and decode literals
+            // from it; parse a copy so that they neither retain the caller's
+            // buffer, or a mapping of its file, nor see it change.
+            Utf8Key copy = ((Utf8Key) key).copy();
+            key = copy;
+            parsed = Source.fromUtf8(copy.bytes, source.getName());
+        }
+        document = Parser.parse(parsed, options);
+        document = segment.put(key, document);
+        evictOverweight(segment);
+        return document;
+    }
+
+    /**
+     * Evicts the least recently used entries of the other segments while
+     * the total weight exceeds the bound, after the given segment has
+     * evicted all it could. Segments are locked one at a time.
+     */
+    private void evictOverweight(Segment grown) {
+        for (int i = 0; weight.get() > maxWeight && i < segments.length; i++) {
+            if (segments[i] != grown) {
+                segments[i].evictOverweight();
+            }
+        }
+    }
+
+    /**
+     * Returns the length of the longest body that can be cached: the
+     * weight bound.
+     */
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    /**
+     * Returns the total length of the cached bodies.
+     */
+    public long getWeight() {
+        return weight.get();
+    }
+
+    /**
+     * Returns the cached document for the given body, as parsed from a
+     * String source, or null.
+     */
+    public Document getIfPresent(String body) {
+        return segmentFor(body).get(body);
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.map.size();
+            }
+        }
+        return size;
+    }
+
+    public long getHitCount() {
+        long count = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                count += segment.hitCount;
+            }
+        }
+        return count;
+    }
+
+    public long getMissCount() {
+        long count = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                count += segment.missCount;
+            }
+        }
+        return count;
+    }
+
+    public long getEvictionCount() {
+        long count = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                count += segment.evictionCount;
+            }
+        }
+        return count;
+    }
+
+    private Segment segmentFor(Object key) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        return segments[hash & (segments.length - 1)];
+    }
+
+    /**
+     * A least recently used map guarded by its own monitor. The weight of
+     * its entries is counted in the weight of the cache.
+     */
+    private final class Segment {
+        private final int maxEntries;
+        private final LinkedHashMap<Object, Document> map = new LinkedHashMap<>(16, 0.75f, true);
+        private long hitCount;
+        private long missCount;
+        private long evictionCount;
+
+        Segment(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        synchronized Document get(Object key) {
+            Document document = map.get(key);
+            if (document != null) {
+                hitCount++;
+            } else {
+                missCount++;
+            }
+            return document;
+        }
+
+        synchronized Document put(Object key, Document document) {
+            if (weigh(key) > maxWeight) {
+                // Would evict itself immediately.
+                return document;
+            }
+            Document existing = map.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            map.put(key, document);
+            weight.addAndGet(weigh(key));
+            Iterator<Map.Entry<Object, Document>> it = map.entrySet().iterator();
+            // Never evicts the new entry, which is the most recently used.
+            while (map.size() > maxEntries || map.size() > 1 && weight.get() > maxWeight) {
+                evict(it);
+            }
+            return document;
+        }
+
+        synchronized void evictOverweight() {
+            Iterator<Map.Entry<Object, Document>> it = map.entrySet().iterator();
+            while (weight.get() > maxWeight && it.hasNext()) {
+                evict(it);
+            }
+        }
+
+        private void evict(Iterator<Map.Entry<Object, Document>> it) {
+            Map.Entry<Object, Document> eldest = it.next();
+            weight.addAndGet(-weigh(eldest.getKey()));
+            it.remove();
+            evictionCount++;
+        }
+
+        synchronized void clear() {
+            long cleared = 0;
+            for (Object key : map.keySet()) {
+                cleared += weigh(key);
+            }
+            map.clear();
+            weight.addAndGet(-cleared);
+        }
+    }
+
+    private static int weigh(Object key) {
+        return key instanceof Utf8Key ? ((Utf8Key) key).bytes.remaining() : ((String) key).length();
+    }
+
+    /**
+     * The key of a UTF-8 source: its bytes, compared by content. The hash
+     * is computed once, since every lookup needs it twice.
+     */
+    private static final class Utf8Key {
+        final ByteBuffer bytes;
+        final int hash;
+
+        Utf8Key(ByteBuffer bytes) {
+            this(bytes, bytes.hashCode());
+        }
+
+        private Utf8Key(ByteBuffer bytes, int hash) {
+            this.bytes = bytes;
+            this.hash = hash;
+        }
+
+        /**
+         * Returns an equal key holding a heap copy of the bytes.
+         */
+        Utf8Key copy() {
+            ByteBuffer copy = ByteBuffer.allocate(bytes.remaining());
+            copy.put(bytes.duplicate());
+            copy.flip();
+            return new Utf8Key(copy, hash);
+        }
+
+        @Override public boolean equals(Object obj) {
+            return obj instanceof Utf8Key && ((Utf8Key) obj).hash == hash && ((Utf8Key) obj).bytes.equals(bytes);
+        }
+
+        @Override public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package org.sapzil.graphqlj.language;
+
+import org.sapzil.graphqlj.language.ast.Document;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * A cache of values derived from documents, keyed by document identity and
+ * a second key, such as an operation name or a schema version.
+ *
+ * Documents are held weakly, so the values of a document go away once it
+ * is no longer referenced; the values must not refer to the document
+ * itself, only to nodes below it, or they would keep their key alive. Put
+ * a DocumentCache in front so that equal queries share one Document.
+ *
+ * Each document holds at most maxKeysPerDocument values; adding one more
+ * replaces those it holds. The documents are spread over independently
+ * locked segments by their identity hash.
+ */
+public final class DocumentKeyedCache<K, V> {
+    private static final int SEGMENT_COUNT = 16;
+
+    private final int maxKeysPerDocument;
+    private final Segment[] segments;
+
+    public DocumentKeyedCache(int maxKeysPerDocument) {
+        if (maxKeysPerDocument < 1) {
+            throw new IllegalArgumentException("maxKeysPerDocument must be positive");
+        }
+        this.maxKeysPerDocument = maxKeysPerDocument;
+        this.segments = new Segment[SEGMENT_COUNT];
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    /**
+     * Returns the value cached for the document and key, or null.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(Document document, K key) {
+        Segment segment = segmentFor(document);
+        synchronized (segment) {
+            Map<Object, Object> values = segment.map.get(document);
+            V value = values != null ? (V) values.get(key) : null;
+            if (value != null) {
+                segment.hitCount++;
+            } else {
+                segment.missCount++;
+            }
+            return value;
+        }
+    }
+
+    public void put(Document document, K key, V value) {
+        Segment segment = segmentFor(document);
+        synchronized (segment) {
+            Map<Object, Object> values = segment.map.get(document);
+            if (values == null) {
+                values = new HashMap<>(2);
+                segment.map.put(document, values);
+            } else if (values.size() >= maxKeysPerDocument && !values.containsKey(key)) {
+                values.clear();
+            }
+            values.put(key, value);
+        }
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.map.clear();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of documents with cached values, including those
+     * that have been collected but not yet expunged.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.map.size();
+            }
+        }
+        return size;
+    }
+
+    public long getHitCount() {
+        long count = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                count += segment.hitCount;
+            }
+        }
+        return count;
+    }
+
+    public long getMissCount() {
+        long count = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                count += segment.missCount;
+            }
+        }
+        return count;
+    }
+
+    private Segment segmentFor(Document document) {
+        int hash = System.identityHashCode(document);
+        hash ^= hash >>> 16;
+        return segments[hash & (segments.length - 1)];
+    }
+
+    /**
+     * A weakly keyed map guarded by its own monitor. Document does not
+     * override equals(), so documents are compared by identity. The
+     * values of a document are held by their second key.
+     */
+    private static final class Segment {
+        final Map<Document, Map<Object, Object>> map = new WeakHashMap<>();
+        long hitCount;
+        long missCount;
+    }
+}
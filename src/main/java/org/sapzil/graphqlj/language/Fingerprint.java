@@ -0,0 +1,64 @@
+package org.sapzil.graphqlj.language;
+
+/**
+ * A 128-bit fingerprint of a document, computed by Normalizer.
+ *
+ * The value is the MurmurHash3 (x64, 128-bit, seed 0) of the UTF-8
+ * encoded text it was computed from, so it is stable across processes and
+ * versions and can be reproduced by other implementations. Where 64 bits
+ * suffice, use getHigh() alone.
+ */
+public final class Fingerprint {
+    private final long high;
+    private final long low;
+
+    public Fingerprint(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    /**
+     * Returns the fingerprint of the given text.
+     */
+    public static Fingerprint of(CharSequence text) {
+        Murmur3Hasher hasher = new Murmur3Hasher();
+        hasher.append(text);
+        return hasher.finish();
+    }
+
+    /**
+     * Returns the first 64 bits (h1 of MurmurHash3).
+     */
+    public long getHigh() {
+        return high;
+    }
+
+    /**
+     * Returns the last 64 bits (h2 of MurmurHash3).
+     */
+    public long getLow() {
+        return low;
+    }
+
+    @Override public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Fingerprint)) {
+            return false;
+        }
+        Fingerprint that = (Fingerprint) o;
+        return high == that.high && low == that.low;
+    }
+
+    @Override public int hashCode() {
+        return (int) (high ^ (high >>> 32));
+    }
+
+    /**
+     * Returns the fingerprint as 32 lowercase hex digits, high bits first.
+     */
+    @Override public String toString() {
+        return String.format("%016x%016x", high, low);
+    }
+}
@@ -0,0 +1,195 @@
+package org.sapzil.graphqlj.language;
+
+import org.sapzil.graphqlj.language.ast.NodeKind;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Builds a FlatDocument from the nodes reported by Parser, appending them
+ * to parallel arrays instead of building ast objects. Lists and absent
+ * children leave no trace.
+ */
+final class FlatBuilder extends NodeSink<FlatDocument> {
+    private static final int[] NO_INTS = new int[0];
+
+    private final Source source;
+
+    // Node storage, allocated on first use. lastChildren is only needed
+    // while building.
+    private int size;
+    private byte[] kinds = new byte[0];
+    private int[] starts = NO_INTS;
+    private int[] ends = NO_INTS;
+    private int[] firstChildren = NO_INTS;
+    private int[] nextSiblings = NO_INTS;
+    private int[] lastChildren = NO_INTS;
+    private int[] data = NO_INTS;
+    // The node that newly begun nodes are appended to.
+    private int parent = -1;
+
+    private final HashMap<String, Integer> nameIds = new HashMap<>();
+    private final ArrayList<String> names = new ArrayList<>();
+
+    FlatBuilder(Source source) {
+        this.source = source;
+    }
+
+    @Override
+    FlatDocument finish() {
+        int size = this.size;
+        return new FlatDocument(
+                source,
+                size,
+                Arrays.copyOf(kinds, size),
+                Arrays.copyOf(starts, size),
+                Arrays.copyOf(ends, size),
+                Arrays.copyOf(firstChildren, size),
+                Arrays.copyOf(nextSiblings, size),
+                Arrays.copyOf(data, size),
+                names.toArray(new String[names.size()])
+        );
+    }
+
+    /**
+     * Appends a node as the last child of the current parent and returns
+     * its index.
+     */
+    private int append(NodeKind kind, int start, int end, int value) {
+        int node = size;
+        if (node == kinds.length) {
+            grow();
+        }
+        size++;
+        kinds[node] = (byte) kind.ordinal();
+        starts[node] = start;
+        ends[node] = end;
+        firstChildren[node] = -1;
+        nextSiblings[node] = -1;
+        lastChildren[node] = -1;
+        data[node] = value;
+        int parent = this.parent;
+        if (parent >= 0) {
+            int last = lastChildren[parent];
+            if (last < 0) {
+                firstChildren[parent] = node;
+            } else {
+                nextSiblings[last] = node;
+            }
+            lastChildren[parent] = node;
+        }
+        return node;
+    }
+
+    private void grow() {
+        // A rough guess to start with: one node per four characters.
+        int capacity = kinds.length == 0 ? Math.max(16, source.length() / 4) : kinds.length * 2;
+        kinds = Arrays.copyOf(kinds, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        ends = Arrays.copyOf(ends, capacity);
+        firstChildren = Arrays.copyOf(firstChildren, capacity);
+        nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+        lastChildren = Arrays.copyOf(lastChildren, capacity);
+        data = Arrays.copyOf(data, capacity);
+    }
+
+    private int nameId(String name) {
+        Integer id = nameIds.get(name);
+        if (id == null) {
+            id = names.size();
+            names.add(name);
+            nameIds.put(name, id);
+        }
+        return id;
+    }
+
+    /**
+     * Appends a node and makes it the current parent. Returns the previous
+     * parent as the mark.
+     */
+    @Override
+    int begin(NodeKind kind, int start) {
+        int saved = parent;
+        parent = append(kind, start, start, -1);
+        return saved;
+    }
+
+    @Override
+    void end(NodeKind kind, int mark, int start, int end) {
+        int node = parent;
+        ends[node] = end;
+        if (kind == NodeKind.FIELD) {
+            // Aliased if the second child is a name too.
+            int second = nextSiblings[firstChildren[node]];
+            data[node] = second >= 0 && kinds[second] == NodeKind.NAME.ordinal() ? 1 : 0;
+        }
+        parent = mark;
+    }
+
+    @Override
+    void name(int start, int end, String value) {
+        append(NodeKind.NAME, start, end, nameId(value));
+    }
+
+    @Override
+    void operation(String operation) {
+        data[parent] = nameId(operation);
+    }
+
+    @Override
+    void literal(NodeKind kind, Lexer lexer) {
+        // Decoded from the source on demand.
+        append(kind, lexer.getStart(), lexer.getEnd(), -1);
+    }
+
+    @Override
+    void value(NodeKind kind, int start, int end, String value) {
+        if (kind == NodeKind.BOOLEAN_VALUE) {
+            append(kind, start, end, value == NameTable.TRUE ? 1 : 0);
+        } else {
+            append(kind, start, end, nameId(value));
+        }
+    }
+
+    @Override
+    int beginList() {
+        return 0;
+    }
+
+    @Override
+    void endList(int mark) {
+    }
+
+    @Override
+    void absent() {
+    }
+
+    /**
+     * Wraps the node that was just ended, and is therefore the last child
+     * of the current parent. The wrapper takes over the index of the node,
+     * which moves to a new index.
+     */
+    @Override
+    void wrap(NodeKind kind, int start, int end) {
+        int node = lastChildren[parent];
+        int moved = size;
+        if (moved == kinds.length) {
+            grow();
+        }
+        size++;
+        kinds[moved] = kinds[node];
+        starts[moved] = starts[node];
+        ends[moved] = ends[node];
+        firstChildren[moved] = firstChildren[node];
+        nextSiblings[moved] = -1;
+        lastChildren[moved] = lastChildren[node];
+        data[moved] = data[node];
+
+        kinds[node] = (byte) kind.ordinal();
+        ends[node] = end;
+        firstChildren[node] = moved;
+        lastChildren[node] = moved;
+        data[node] = -1;
+    }
+}
@@ -0,0 +1,127 @@
+package org.sapzil.graphqlj.language;
+
+import org.sapzil.graphqlj.language.ast.NodeKind;
+
+/**
+ * A parsed document stored as parallel primitive arrays, produced by
+ * Parser.parseFlat().
+ *
+ * Nodes are identified by their index; the document node is 0. Each node
+ * has a kind, start and end offsets into the source, its first child and
+ * next sibling (-1 when absent), and one int of kind-specific data:
+ *
+ * - NAME, ENUM_VALUE: the id of the name, see getName(int)
+ * - OPERATION_DEFINITION: the id of the operation name (query or mutation)
+ * - FIELD: 1 if the field is aliased, 0 otherwise
+ * - BOOLEAN_VALUE: 1 for true, 0 for false
+ * - anything else: -1
+ *
+ * Children appear in the same order as the arguments of the corresponding
+ * ast node constructor, with names stored as NAME children and absent
+ * optional children omitted. Literal values of INT_VALUE, FLOAT_VALUE and
+ * STRING_VALUE nodes are decoded from the source on demand.
+ *
+ * FlatNode provides a reusable cursor for walking the document.
+ */
+public final class FlatDocument {
+    private static final NodeKind[] KINDS = NodeKind.values();
+
+    private final Source source;
+    private final int size;
+    private final byte[] kinds;
+    private final int[] starts;
+    private final int[] ends;
+    private final int[] firstChildren;
+    private final int[] nextSiblings;
+    private final int[] data;
+    private final String[] names;
+
+    FlatDocument(Source source, int size, byte[] kinds, int[] starts, int[] ends,
+                 int[] firstChildren, int[] nextSiblings, int[] data, String[] names) {
+        this.source = source;
+        this.size = size;
+        this.kinds = kinds;
+        this.starts = starts;
+        this.ends = ends;
+        this.firstChildren = firstChildren;
+        this.nextSiblings = nextSiblings;
+        this.data = data;
+        this.names = names;
+    }
+
+    public Source getSource() {
+        return source;
+    }
+
+    /**
+     * Returns the number of nodes.
+     */
+    public int size() {
+        return size;
+    }
+
+    public NodeKind getKind(int node) {
+        return KINDS[kinds[node]];
+    }
+
+    public int getStart(int node) {
+        return starts[node];
+    }
+
+    public int getEnd(int node) {
+        return ends[node];
+    }
+
+    public int getFirstChild(int node) {
+        return firstChildren[node];
+    }
+
+    public int getNextSibling(int node) {
+        return nextSiblings[node];
+    }
+
+    public int getData(int node) {
+        return data[node];
+    }
+
+    /**
+     * Returns the number of distinct names in the document.
+     */
+    public int getNameCount() {
+        return names.length;
+    }
+
+    /**
+     * Returns the name with the given id.
+     */
+    public String getName(int id) {
+        return names[id];
+    }
+
+    /**
+     * Returns a cursor positioned at the document node.
+     */
+    public FlatNode view() {
+        return new FlatNode(this);
+    }
+
+    /**
+     * Returns the value of a literal or name node as a string.
+     */
+    String getValue(int node) {
+        switch (KINDS[kinds[node]]) {
+        case NAME:
+        case ENUM_VALUE:
+            return names[data[node]];
+        case INT_VALUE:
+        case FLOAT_VALUE:
+            return source.substring(starts[node], ends[node]);
+        case STRING_VALUE:
+            return Lexer.stringValue(source, starts[node], ends[node]);
+        case BOOLEAN_VALUE:
+            return data[node] != 0 ? NameTable.TRUE : NameTable.FALSE;
+        default:
+            return null;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package org.sapzil.graphqlj.language;
+
+import org.sapzil.graphqlj.language.ast.NodeKind;
+
+import java.util.Arrays;
+
+/**
+ * A reusable cursor over the nodes of a FlatDocument.
+ *
+ * Moving the cursor does not allocate (apart from occasionally growing its
+ * path stack), so one FlatNode can walk a whole document. A FlatNode must
+ * not be shared between threads, but any number of cursors can walk the
+ * same FlatDocument concurrently.
+ */
+public final class FlatNode {
+    private final FlatDocument document;
+    private int node;
+    // Ancestors of the current node, for parent().
+    private int[] path = new int[16];
+    private int depth;
+
+    FlatNode(FlatDocument document) {
+        this.document = document;
+    }
+
+    public FlatDocument getDocument() {
+        return document;
+    }
+
+    /**
+     * Returns the index of the current node.
+     */
+    public int getIndex() {
+        return node;
+    }
+
+    public NodeKind getKind() {
+        return document.getKind(node);
+    }
+
+    public int getStart() {
+        return document.getStart(node);
+    }
+
+    public int getEnd() {
+        return document.getEnd(node);
+    }
+
+    /**
+     * Moves to the document node.
+     */
+    public void reset() {
+        node = 0;
+        depth = 0;
+    }
+
+    /**
+     * Moves to the first child of the current node. Returns false, without
+     * moving, if it has no children.
+     */
+    public boolean firstChild() {
+        int child = document.getFirstChild(node);
+        if (child < 0) {
+            return false;
+        }
+        if (depth == path.length) {
+            path = Arrays.copyOf(path, depth * 2);
+        }
+        path[depth++] = node;
+        node = child;
+        return true;
+    }
+
+    /**
+     * Moves to the next sibling of the current node. Returns false, without
+     * moving, if it is the last child.
+     */
+    public boolean nextSibling() {
+        int sibling = document.getNextSibling(node);
+        if (sibling < 0) {
+            return false;
+        }
+        node = sibling;
+        return true;
+    }
+
+    /**
+     * Moves back to the node this cursor descended from. Returns false,
+     * without moving, at the document node.
+     */
+    public boolean parent() {
+        if (depth == 0) {
+            return false;
+        }
+        node = path[--depth];
+        return true;
+    }
+
+    /**
+     * Returns the name of the current node: the value of a NAME or
+     * ENUM_VALUE node, the field name (not the alias) of a FIELD, and the
+     * first NAME child of any other node. Returns null if there is none.
+     */
+    public String getName() {
+        int name = nameChild(node);
+        if (name < 0) {
+            return null;
+        }
+        if (document.getKind(node) == NodeKind.FIELD && document.getData(node) == 1) {
+            name = document.getNextSibling(name);
+        }
+        return document.getValue(name);
+    }
+
+    /**
+     * Returns the alias of a FIELD, or null.
+     */
+    public String getAlias() {
+        if (document.getKind(node) != NodeKind.FIELD || document.getData(node) != 1) {
+            return null;
+        }
+        return document.getValue(document.getFirstChild(node));
+    }
+
+    /**
+     * Returns the operation (query or mutation) of an OPERATION_DEFINITION.
+     */
+    public String getOperation() {
+        if (document.getKind(node) != NodeKind.OPERATION_DEFINITION) {
+            return null;
+        }
+        return document.getName(document.getData(node));
+    }
+
+    /**
+     * Returns the value of a NAME or literal value node as a string, or
+     * null for other nodes.
+     */
+    public String getValue() {
+        return document.getValue(node);
+    }
+
+    private int nameChild(int node) {
+        switch (document.getKind(node)) {
+        case NAME:
+        case ENUM_VALUE:
+            return node;
+        default:
+            for (int child = document.getFirstChild(node); child >= 0; child = document.getNextSibling(child)) {
+                if (document.getKind(child) == NodeKind.NAME) {
+                    return child;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -1,8 +1,99 @@
 package org.sapzil.graphqlj.language;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+
+/**
+ * An error in a document, located by its position in the source.
+ *
+ * The source is not serialized, and is null in a deserialized error; the
+ * message and location are formatted before it is dropped, so they are
+ * kept.
+ */
 public class GraphQLLanguageException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    private final String kind;
+    private final transient Source source;
+    private final int position;
+    private final String description;
+    // Formatted on first use, since that needs the line index of the source.
+    private String message;
+    // The 1-based line and column, set when serialized; 0 if unknown.
+    private int line;
+    private int column;
+
     public GraphQLLanguageException(Source source, int position, String message) {
-        // TODO: better error reporting
+        this("Syntax Error", source, position, message);
+    }
+
+    /**
+     * Creates an error whose message starts with the given kind instead of
+     * "Syntax Error".
+     */
+    protected GraphQLLanguageException(String kind, Source source, int position, String message) {
         super(message);
+        this.kind = kind;
+        this.source = source;
+        this.position = position;
+        this.description = message;
+    }
+
+    /**
+     * Returns the error message, including the source name and the line
+     * and column of the error.
+     */
+    @Override
+    public String getMessage() {
+        String message = this.message;
+        if (message == null) {
+            if (source == null) {
+                message = kind + ": " + description;
+            } else {
+                message = kind + " " + source.getName() + " (" + source.getLineColumn(position) + ") " + description;
+            }
+            this.message = message;
+        }
+        return message;
+    }
+
+    /**
+     * Returns the source of the document, or null if there is none or the
+     * error was deserialized.
+     */
+    public Source getSource() {
+        return source;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * Returns the line and column of the error, or null if it has no
+     * source.
+     */
+    public SourceLocation getLocation() {
+        if (source != null) {
+            return source.getLineColumn(position);
+        }
+        return line > 0 ? new SourceLocation(line, column) : null;
+    }
+
+    /**
+     * Returns the error message without the source name and location.
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        getMessage();
+        if (source != null) {
+            SourceLocation location = source.getLineColumn(position);
+            line = location.getLine();
+            column = location.getColumn();
+        }
+        out.defaultWriteObject();
     }
 }
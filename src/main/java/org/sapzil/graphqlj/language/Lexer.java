@@ -1,114 +1,246 @@
 package org.sapzil.graphqlj.language;
 
+/**
+ * A cursor over the tokens of a Source.
+ *
+ * The lexer keeps the kind, start and end of the current token in
+ * primitive fields, so advancing never allocates. Token values are only
+ * materialized when asked for via getValue() or getToken().
+ */
 public final class Lexer {
+    // Classes of ASCII characters, as bit flags in CHAR_CLASSES.
+    private static final byte NAME_START = 1;
+    private static final byte NAME_PART = 2;
+    private static final byte WHITESPACE = 4;
+
+    /**
+     * The classes of each ASCII character, so that the hot loops test one
+     * table entry instead of a chain of range comparisons. Non-ASCII code
+     * units have no entry and are handled separately.
+     */
+    private static final byte[] CHAR_CLASSES = new byte[128];
+
+    /**
+     * The token kind of each single-character punctuator, or null.
+     */
+    private static final TokenKind[] PUNCTUATORS = new TokenKind[128];
+
+    static {
+        for (char c = 'A'; c <= 'Z'; c++) {
+            CHAR_CLASSES[c] = NAME_START | NAME_PART;
+        }
+        for (char c = 'a'; c <= 'z'; c++) {
+            CHAR_CLASSES[c] = NAME_START | NAME_PART;
+        }
+        CHAR_CLASSES['_'] = NAME_START | NAME_PART;
+        for (char c = '0'; c <= '9'; c++) {
+            CHAR_CLASSES[c] = NAME_PART;
+        }
+        // Tab, line feed, vertical tab, form feed, carriage return
+        for (char c = 9; c <= 13; c++) {
+            CHAR_CLASSES[c] = WHITESPACE;
+        }
+        CHAR_CLASSES[' '] = WHITESPACE;
+        CHAR_CLASSES[','] = WHITESPACE;
+
+        PUNCTUATORS['!'] = TokenKind.BANG;
+        PUNCTUATORS['$'] = TokenKind.DOLLAR;
+        PUNCTUATORS['('] = TokenKind.PAREN_L;
+        PUNCTUATORS[')'] = TokenKind.PAREN_R;
+        PUNCTUATORS[':'] = TokenKind.COLON;
+        PUNCTUATORS['='] = TokenKind.EQUALS;
+        PUNCTUATORS['@'] = TokenKind.AT;
+        PUNCTUATORS['['] = TokenKind.BRACKET_L;
+        PUNCTUATORS[']'] = TokenKind.BRACKET_R;
+        PUNCTUATORS['{'] = TokenKind.BRACE_L;
+        PUNCTUATORS['|'] = TokenKind.PIPE;
+        PUNCTUATORS['}'] = TokenKind.BRACE_R;
+    }
+
     private final Source source;
+    private final NameTable names;
+    private final int bodyLength;
     private int prevPosition;
+    private int maxTokens = Integer.MAX_VALUE;
+    private int tokenCount;
+
+    // The current token.
+    private TokenKind kind;
+    private int start;
+    private int end;
+    private int nameHash;
+    // Whether the current string token contains escape sequences.
+    private boolean stringEscaped;
 
     public Lexer(Source source) {
+        this(source, NameTable.getDefault());
+    }
+
+    public Lexer(Source source, NameTable names) {
         this.source = source;
+        this.names = names;
+        this.bodyLength = source.length();
         this.prevPosition = 0;
     }
 
+    /**
+     * Makes advance() fail once more than the given number of tokens, not
+     * counting EOF, have been read.
+     */
+    public void setMaxTokens(int maxTokens) {
+        this.maxTokens = maxTokens;
+    }
+
     public Token nextToken() throws GraphQLLanguageException {
         return nextToken(prevPosition);
     }
 
     public Token nextToken(int resetPosition) throws GraphQLLanguageException {
-        Token token = readToken(resetPosition);
-        prevPosition = token.getEnd();
-        return token;
+        advance(resetPosition);
+        return getToken();
+    }
+
+    /**
+     * Moves the cursor to the token following the current one.
+     */
+    public TokenKind advance() throws GraphQLLanguageException {
+        return advance(prevPosition);
+    }
+
+    /**
+     * Moves the cursor to the first token at or after the given position.
+     */
+    public TokenKind advance(int resetPosition) throws GraphQLLanguageException {
+        readToken(resetPosition);
+        prevPosition = end;
+        if (++tokenCount > maxTokens && kind != TokenKind.EOF) {
+            throw new LimitExceededException(
+                    source,
+                    start,
+                    "Document contains more than " + maxTokens + " tokens."
+            );
+        }
+        return kind;
+    }
+
+    public TokenKind getKind() {
+        return kind;
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public int getEnd() {
+        return end;
+    }
+
+    /**
+     * Materializes the value of the current token. Returns null for
+     * punctuators and EOF.
+     *
+     * Names are interned through the lexer's NameTable, so keywords can be
+     * compared by identity against the NameTable constants.
+     */
+    public String getValue() {
+        switch (kind) {
+        case NAME:
+            return names.intern(source, start, end, nameHash);
+        case INT:
+        case FLOAT:
+            return source.substring(start, end);
+        case STRING:
+            if (!stringEscaped) {
+                return source.substring(start + 1, end - 1);
+            }
+            return stringValue(source, start, end);
+        default:
+            return null;
+        }
     }
 
     /**
-     * Helper function for constructing the Token object.
+     * Materializes the current token as a Token object.
      */
-    private Token makeToken(TokenKind kind, int start, int end) {
-        return new Token(kind, start, end);
+    public Token getToken() {
+        return new Token(kind, start, end, getValue());
     }
 
     /**
-     * Helper function for constructing the Token object.
+     * Helper function for updating the current token.
      */
-    private Token makeToken(TokenKind kind, int start, int end, String value) {
-        return new Token(kind, start, end, value);
+    private void setToken(TokenKind kind, int start, int end) {
+        this.kind = kind;
+        this.start = start;
+        this.end = end;
     }
 
     /**
-     * Gets the next token from the source starting at the given position.
+     * Reads the next token from the source starting at the given position.
      *
      * This skips over whitespace and comments until it finds the next lexable
      * token, then lexes punctuators immediately or calls the appropriate helper
      * fucntion for more complicated tokens.
      */
-    private Token readToken(int fromPosition) throws GraphQLLanguageException {
-        String body = source.getBody();
-        int bodyLength = body.length();
+    private void readToken(int fromPosition) throws GraphQLLanguageException {
+        int bodyLength = this.bodyLength;
 
-        int position = positionAfterWhitespace(body, fromPosition);
+        int position = positionAfterWhitespace(source, fromPosition);
 
         if (position >= bodyLength) {
-            return makeToken(TokenKind.EOF, position, position);
+            setToken(TokenKind.EOF, position, position);
+            return;
         }
 
-        char code = body.charAt(position);
+        char code = source.charAt(position);
+
+        if (code < 0x80) {
+            TokenKind punctuator = PUNCTUATORS[code];
+            if (punctuator != null) {
+                setToken(punctuator, position, position + 1);
+                return;
+            }
+            if ((CHAR_CLASSES[code] & NAME_START) != 0) {
+                readName(position);
+                return;
+            }
+        }
 
         switch (code) {
-        // !
-        case 33: return makeToken(TokenKind.BANG, position, position + 1);
-        // $
-        case 36: return makeToken(TokenKind.DOLLAR, position, position + 1);
-        // (
-        case 40: return makeToken(TokenKind.PAREN_L, position, position + 1);
-        // )
-        case 41: return makeToken(TokenKind.PAREN_R, position, position + 1);
         // .
         case 46:
-            // TODO: bound check
-            if (body.charAt(position + 1) == 46 &&
-                    body.charAt(position + 2) == 46) {
-                return makeToken(TokenKind.SPREAD, position, position + 3);
+            if (position + 2 < bodyLength &&
+                    source.charAt(position + 1) == 46 &&
+                    source.charAt(position + 2) == 46) {
+                setToken(TokenKind.SPREAD, position, position + 3);
+                return;
             }
             break;
-        // :
-        case 58: return makeToken(TokenKind.COLON, position, position + 1);
-        // =
-        case 61: return makeToken(TokenKind.EQUALS, position, position + 1);
-        // @
-        case 64: return makeToken(TokenKind.AT, position, position + 1);
-        // [
-        case 91: return makeToken(TokenKind.BRACKET_L, position, position + 1);
-        // ]
-        case 93: return makeToken(TokenKind.BRACKET_R, position, position + 1);
-        // {
-        case 123: return makeToken(TokenKind.BRACE_L, position, position + 1);
-        // |
-        case 124: return makeToken(TokenKind.PIPE, position, position + 1);
-        // }
-        case 125: return makeToken(TokenKind.BRACE_R, position, position + 1);
-        // A-Z
-        case 65: case 66: case 67: case 68: case 69: case 70: case 71: case 72:
-        case 73: case 74: case 75: case 76: case 77: case 78: case 79: case 80:
-        case 81: case 82: case 83: case 84: case 85: case 86: case 87: case 88:
-        case 89: case 90:
-            // _
-        case 95:
-            // a-z
-        case 97: case 98: case 99: case 100: case 101: case 102: case 103: case 104:
-        case 105: case 106: case 107: case 108: case 109: case 110: case 111:
-        case 112: case 113: case 114: case 115: case 116: case 117: case 118:
-        case 119: case 120: case 121: case 122:
-            return readName(source, position);
         // -
         case 45:
             // 0-9
         case 48: case 49: case 50: case 51: case 52:
         case 53: case 54: case 55: case 56: case 57:
-            return readNumber(source, position, code);
+            readNumber(position, code);
+            return;
         // "
-        case 34: return readString(source, position);
+        case 34:
+            readString(position);
+            return;
         }
 
-        throw error(source, position, "Unexpected character \"" + code + "\"");
+        throw error(source, position, "Unexpected character \"" + source.characterAt(position) + "\"");
+    }
+
+    /**
+     * Returns true if the given character is skipped as whitespace, which
+     * includes commas and line terminators but not comments.
+     */
+    static boolean isWhitespace(char code) {
+        if (code < 0x80) {
+            return (CHAR_CLASSES[code] & WHITESPACE) != 0;
+        }
+        return code == 0xa0 || code == 0x2028 || code == 0x2029;
     }
 
     /**
@@ -116,28 +248,29 @@ public final class Lexer {
      * or commented character, then returns the position of that character for
      * lexing.
      */
-    private int positionAfterWhitespace(String body, int startPosition) {
-        int bodyLength = body.length();
+    private int positionAfterWhitespace(Source source, int startPosition) {
+        int bodyLength = this.bodyLength;
         int position = startPosition;
         while (position < bodyLength) {
-            char code = body.charAt(position);
-            // Skip whitespace
-            if (code == 32 || // space
-                    code == 44 || // comma
-                    code == 160 || // '\xa0'
-                    // TODO: is it okay to compare char with int > 2^8?
-                    code == 0x2028 || // line separator
-                    code == 0x2029 || // paragraph separator
-                    code > 8 && code < 14 // whitespace
-                    ) {
+            char code = source.charAt(position);
+            int length;
+            // Skip whitespace, and runs of indentation in bulk
+            if (code < 0x80 && (CHAR_CLASSES[code] & WHITESPACE) != 0) {
                 ++position;
+                if (code == 32 && position < bodyLength && source.charAt(position) == 32) {
+                    position = source.skipSpaces(position + 1);
+                }
             // Skip comments
             } else if (code == 35) { // #
                 ++position;
-                while (position < bodyLength && (code = body.charAt(position)) != 0 &&
-                        code != 10 && code != 13 && code != 0x2028 && code != 0x2029) {
+                while ((position = source.scanComment(position)) < bodyLength &&
+                        source.charAt(position) >= 0x80 &&
+                        source.unicodeLineTerminatorLength(position) == 0) {
                     ++position;
                 }
+            // Skip '\xa0', line separator and paragraph separator
+            } else if (code >= 0x80 && (length = source.unicodeWhitespaceLength(position)) > 0) {
+                position += length;
             } else {
                 break;
             }
@@ -152,21 +285,20 @@ public final class Lexer {
      * Int:   -?(0|[1-9][0-9]*)
      * Float: -?(0|[1-9][0-9]*)\.[0-9]+(e-?[0-9]+)?
      */
-    private Token readNumber(Source source, int start, char firstCode) throws GraphQLLanguageException {
+    private void readNumber(int start, char firstCode) throws GraphQLLanguageException {
         char code = firstCode;
-        String body = source.getBody();
         int position = start;
         boolean isFloat = false;
 
         if (code == 45) { // -
-            code = body.charAt(++position);
+            code = codeAt(++position);
         }
 
         if (code == 48) { // 0
-            code = body.charAt(++position);
+            code = codeAt(++position);
         } else if (code >= 49 && code <= 57) { // 1 - 9
             do {
-                code = body.charAt(++position);
+                code = codeAt(++position);
             } while (code >= 48 && code <= 57); // 0 - 9
         } else {
             throw error(source, position, "Invalid number");
@@ -175,23 +307,23 @@ public final class Lexer {
         if (code == 46) { // .
             isFloat = true;
 
-            code = body.charAt(++position);
+            code = codeAt(++position);
             if (code >= 48 && code <= 57) { // 0 - 9
                 do {
-                    code = body.charAt(++position);
+                    code = codeAt(++position);
                 } while (code >= 48 && code <= 57); // 0 - 9
             } else {
                 throw error(source, position, "Invalid number");
             }
 
             if (code == 101) { // e
-                code = body.charAt(++position);
+                code = codeAt(++position);
                 if (code == 45) { // -
-                    code = body.charAt(++position);
+                    code = codeAt(++position);
                 }
                 if (code >= 48 && code <= 57) { // 0 - 9
                     do {
-                        code = body.charAt(++position);
+                        code = codeAt(++position);
                     } while (code >= 48 && code <= 57); // 0 - 9
                 } else {
                     throw error(source, position, "Invalid number");
@@ -199,36 +331,101 @@ public final class Lexer {
             }
         }
 
-        return makeToken(
-                isFloat ? TokenKind.FLOAT : TokenKind.INT,
-                start,
-                position,
-                body.substring(start, position)
-        );
+        setToken(isFloat ? TokenKind.FLOAT : TokenKind.INT, start, position);
     }
 
     /**
-     * Reads a string token from the source file.
+     * Returns the code unit at the given position, or 0 past the end of
+     * the source, so that a truncated token is reported as invalid.
+     */
+    private char codeAt(int position) {
+        return position < bodyLength ? source.charAt(position) : 0;
+    }
+
+    /**
+     * Reads a string token from the source file. Escape sequences are
+     * validated here, but the value is only decoded by stringValue().
      *
      * "([^"\\\u000A\u000D\u2028\u2029]|(\\(u[0-9a-fA-F]{4}|["\\/bfnrt])))*"
      */
-    private Token readString(Source source, int start) throws GraphQLLanguageException {
-        String body = source.getBody();
+    private void readString(int start) throws GraphQLLanguageException {
+        int bodyLength = this.bodyLength;
         int position = start + 1;
-        int chunkStart = position;
         char code = 0;
-        StringBuilder value = new StringBuilder();
+        boolean escaped = false;
 
-        while (
-                position < body.length() &&
-                        (code = body.charAt(position)) != 0 &&
-                        code != 34 &&
-                        code != 10 && code != 13 && code != 0x2028 && code != 0x2029
-                ) {
+        while (true) {
+            // Skip plain characters in bulk.
+            position = source.scanString(position);
+            if (position >= bodyLength) {
+                code = 0;
+                break;
+            }
+            code = source.charAt(position);
+            if (code == 0 || code == 34 || code == 10 || code == 13 ||
+                    code >= 0x80 && source.unicodeLineTerminatorLength(position) != 0) {
+                break;
+            }
+            ++position;
+            if (code == 92) { // \
+                escaped = true;
+                code = position < bodyLength ? source.charAt(position) : 0;
+                switch (code) {
+                case 34: case 47: case 92: case 98: case 102: case 110: case 114: case 116:
+                    break;
+                case 117:
+                    if (position + 4 >= bodyLength || uniCharCode(
+                            source.charAt(position + 1),
+                            source.charAt(position + 2),
+                            source.charAt(position + 3),
+                            source.charAt(position + 4)
+                    ) < 0) {
+                        throw error(source, position, "Bad character escape sequence");
+                    }
+                    position += 4;
+                    break;
+                default:
+                    throw error(source, position, "Bad character escape sequence");
+                }
+                ++position;
+                code = 0;
+            }
+        }
+
+        if (code != 34) {
+            throw error(source, position, "Unterminated string");
+        }
+
+        stringEscaped = escaped;
+        setToken(TokenKind.STRING, start, position + 1);
+    }
+
+    /**
+     * Decodes the value of a string token spanning start to end, including
+     * the quotes. The escape sequences must already have been validated by
+     * readString().
+     *
+     * A value without escape sequences is a plain substring; the builder is
+     * only needed from the first backslash on.
+     */
+    public static String stringValue(Source source, int start, int end) {
+        int position = start + 1;
+        int valueEnd = end - 1;
+        int chunkStart = position;
+        while (position < valueEnd && source.charAt(position) != 92) { // \
             ++position;
+        }
+        if (position == valueEnd) {
+            return source.substring(chunkStart, valueEnd);
+        }
+        // Escapes only shrink the text, so this capacity always suffices.
+        StringBuilder value = new StringBuilder(valueEnd - chunkStart);
+
+        while (position < valueEnd) {
+            char code = source.charAt(position++);
             if (code == 92) { // \
-                value.append(body, chunkStart, position - 1);
-                code = body.charAt(position);
+                source.append(value, chunkStart, position - 1);
+                code = source.charAt(position);
                 switch (code) {
                 case 34: value.append('"'); break;
                 case 47: value.append('/'); break;
@@ -239,32 +436,22 @@ public final class Lexer {
                 case 114: value.append('\r'); break;
                 case 116: value.append('\t'); break;
                 case 117:
-                    int charCode = uniCharCode(
-                            body.charAt(position + 1),
-                            body.charAt(position + 2),
-                            body.charAt(position + 3),
-                            body.charAt(position + 4)
-                    );
-                    if (charCode < 0) {
-                        throw error(source, position, "Bad character escape sequence");
-                    }
-                    value.appendCodePoint(charCode);
+                    value.appendCodePoint(uniCharCode(
+                            source.charAt(position + 1),
+                            source.charAt(position + 2),
+                            source.charAt(position + 3),
+                            source.charAt(position + 4)
+                    ));
                     position += 4;
                     break;
-                default:
-                    throw error(source, position, "Bad character escape sequence");
                 }
                 ++position;
                 chunkStart = position;
             }
         }
 
-        if (code != 34) {
-            throw error(source, position, "Unterminated string");
-        }
-
-        value.append(body, chunkStart, position);
-        return makeToken(TokenKind.STRING, start, position + 1, value.toString());
+        source.append(value, chunkStart, valueEnd);
+        return value.toString();
     }
 
     /**
@@ -277,7 +464,7 @@ public final class Lexer {
      * This is implemented by noting that char2hex() returns -1 on error,
      * which means the result of ORing the char2hex() will also be negative.
      */
-    private int uniCharCode(char a, char b, char c, char d) {
+    private static int uniCharCode(char a, char b, char c, char d) {
         return char2hex(a) << 12 | char2hex(b) << 8 | char2hex(c) << 4 | char2hex(d);
     }
 
@@ -289,7 +476,7 @@ public final class Lexer {
      *
      * Returns -1 on error.
      */
-    private int char2hex(char a) {
+    private static int char2hex(char a) {
         return (
                 a >= 48 && a <= 57 ? a - 48 : // 0-9
                         a >= 65 && a <= 70 ? a - 55 : // A-F
@@ -303,30 +490,21 @@ public final class Lexer {
      *
      * [_A-Za-z][_0-9A-Za-z]*
      */
-    private Token readName(Source source, int position) {
-        String body = source.getBody();
-        int bodyLength = body.length();
+    private void readName(int position) {
+        int bodyLength = this.bodyLength;
         int end = position + 1;
+        int hash = source.charAt(position);
         int code;
         while (
                 end != bodyLength &&
-                        // TODO: safe charAt
-                        (code = body.charAt(end)) != 0 &&
-                        (
-                                code == 95 || // _
-                                        code >= 48 && code <= 57 || // 0-9
-                                        code >= 65 && code <= 90 || // A-Z
-                                        code >= 97 && code <= 122 // a-z
-                        )
+                        (code = source.charAt(end)) < 0x80 &&
+                        (CHAR_CLASSES[code] & NAME_PART) != 0
                 ) {
+            hash = 31 * hash + code;
             ++end;
         }
-        return makeToken(
-                TokenKind.NAME,
-                position,
-                end,
-                body.substring(position, end)
-        );
+        nameHash = hash;
+        setToken(TokenKind.NAME, position, end);
     }
 
     private GraphQLLanguageException error(Source source, int position, String message) {
@@ -0,0 +1,14 @@
+package org.sapzil.graphqlj.language;
+
+/**
+ * Thrown when a document exceeds one of the limits of ParseOptions. The
+ * document may well be syntactically valid, so the message starts with
+ * "Limit Exceeded" rather than "Syntax Error".
+ */
+public class LimitExceededException extends GraphQLLanguageException {
+    private static final long serialVersionUID = 1L;
+
+    public LimitExceededException(Source source, int position, String message) {
+        super("Limit Exceeded", source, position, message);
+    }
+}
@@ -1,11 +1,63 @@
 package org.sapzil.graphqlj.language;
 
+/**
+ * The location of a node in its source.
+ *
+ * Nodes store their location as a packed range (see pack()) and only
+ * create Location objects when asked for them.
+ */
 public final class Location {
+    /**
+     * The packed range of a node that has no location.
+     */
+    public static final long NONE = -1L;
+
+    private final int start;
+    private final int end;
+    private final Source source; // nullable
+
     public Location(int start, int end) {
         this(start, end, null);
     }
 
     public Location(int start, int end, Source source) {
+        this.start = start;
+        this.end = end;
+        this.source = source;
+    }
+
+    /**
+     * Packs a start and end offset into a single long.
+     */
+    public static long pack(int start, int end) {
+        return (long) start << 32 | (end & 0xffffffffL);
+    }
+
+    public static int unpackStart(long range) {
+        return (int) (range >>> 32);
+    }
+
+    public static int unpackEnd(long range) {
+        return (int) range;
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public int getEnd() {
+        return end;
+    }
+
+    public Source getSource() {
+        return source;
+    }
 
+    /**
+     * Returns the line and column at which this location starts, or null if
+     * it has no source.
+     */
+    public SourceLocation getLineColumn() {
+        return source != null ? source.getLineColumn(start) : null;
     }
 }
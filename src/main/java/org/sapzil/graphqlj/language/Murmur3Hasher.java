@@ -0,0 +1,103 @@
+package org.sapzil.graphqlj.language;
+
+/**
+ * An incremental MurmurHash3 (x64, 128-bit, seed 0) over a stream of
+ * bytes. Chars appended to it are fed as their UTF-8 encoding, so hashing a
+ * String and hashing its UTF-8 bytes give the same result.
+ */
+final class Murmur3Hasher extends Utf8Encoder {
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private long h1;
+    private long h2;
+    // The partial block, in little-endian order.
+    private long k1;
+    private long k2;
+    private int blockLength;
+    private long length;
+
+    @Override void putByte(int b) {
+        long value = b & 0xffL;
+        if (blockLength < 8) {
+            k1 |= value << (blockLength << 3);
+        } else {
+            k2 |= value << ((blockLength - 8) << 3);
+        }
+        length++;
+        if (++blockLength == 16) {
+            mixBlock();
+        }
+    }
+
+    /**
+     * Feeds the text between the given positions of the source, as UTF-8.
+     */
+    void putSource(Source source, int start, int end) {
+        if (source.isUtf8()) {
+            for (int i = start; i < end; i++) {
+                putByte(source.charAt(i));
+            }
+        } else {
+            for (int i = start; i < end; i++) {
+                putChar(source.charAt(i));
+            }
+        }
+    }
+
+    private void mixBlock() {
+        h1 ^= mixK1(k1);
+        h1 = Long.rotateLeft(h1, 27);
+        h1 += h2;
+        h1 = h1 * 5 + 0x52dce729;
+
+        h2 ^= mixK2(k2);
+        h2 = Long.rotateLeft(h2, 31);
+        h2 += h1;
+        h2 = h2 * 5 + 0x38495ab5;
+
+        k1 = 0;
+        k2 = 0;
+        blockLength = 0;
+    }
+
+    Fingerprint finish() {
+        flushSurrogate();
+        long h1 = this.h1;
+        long h2 = this.h2;
+        if (blockLength > 0) {
+            h1 ^= mixK1(k1);
+            h2 ^= mixK2(k2);
+        }
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+        return new Fingerprint(h1, h2);
+    }
+
+    private static long mixK1(long k1) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        return k1 * C2;
+    }
+
+    private static long mixK2(long k2) {
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        return k2 * C1;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
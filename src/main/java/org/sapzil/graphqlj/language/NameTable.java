@@ -0,0 +1,121 @@
+package org.sapzil.graphqlj.language;
+
+/**
+ * A bounded, thread-safe table of interned names.
+ *
+ * The lexer looks names up by the character range they occupy in the
+ * source, so a name that is already in the table is returned without
+ * allocating a substring. Keywords always resolve to the constants below,
+ * which makes it safe to compare them by identity.
+ *
+ * The table is a direct-mapped cache: a name evicts whatever previously
+ * occupied its slot. Slots are read and written without locking; this is
+ * safe because String is immutable, so a racing reader either sees a
+ * complete String or a different (or no) entry and falls back to creating
+ * its own copy.
+ */
+public final class NameTable {
+    public static final String QUERY = "query";
+    public static final String MUTATION = "mutation";
+    public static final String FRAGMENT = "fragment";
+    public static final String ON = "on";
+    public static final String TRUE = "true";
+    public static final String FALSE = "false";
+
+    /**
+     * Names longer than this are not interned, so that the table never
+     * retains large strings.
+     */
+    private static final int MAX_NAME_LENGTH = 64;
+
+    private static final int DEFAULT_CAPACITY = 4096;
+
+    private static final String[] KEYWORDS = new String[16];
+
+    static {
+        for (String keyword : new String[] { QUERY, MUTATION, FRAGMENT, ON, TRUE, FALSE }) {
+            int i = keyword.hashCode() & (KEYWORDS.length - 1);
+            while (KEYWORDS[i] != null) {
+                i = (i + 1) & (KEYWORDS.length - 1);
+            }
+            KEYWORDS[i] = keyword;
+        }
+    }
+
+    private static final NameTable DEFAULT = new NameTable(DEFAULT_CAPACITY);
+
+    /**
+     * Returns the table shared by lexers that are not given one explicitly.
+     */
+    public static NameTable getDefault() {
+        return DEFAULT;
+    }
+
+    private final String[] entries;
+    private final int mask;
+
+    /**
+     * Creates a table holding at most the given number of names, rounded
+     * up to a power of two.
+     */
+    public NameTable(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.entries = new String[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Returns the name occupying [start, end) of the given source. Names are
+     * ASCII, so their hash can be computed from the source's code units.
+     */
+    public String intern(Source source, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + source.charAt(i);
+        }
+        return intern(source, start, end, hash);
+    }
+
+    /**
+     * Returns the name occupying [start, end) of the given source, given its
+     * hash as computed by String.hashCode().
+     */
+    String intern(Source source, int start, int end, int hash) {
+        int length = end - start;
+
+        String[] keywords = KEYWORDS;
+        int k = hash & (keywords.length - 1);
+        String keyword;
+        while ((keyword = keywords[k]) != null) {
+            if (matches(keyword, source, start, length)) {
+                return keyword;
+            }
+            k = (k + 1) & (keywords.length - 1);
+        }
+
+        if (length > MAX_NAME_LENGTH) {
+            return source.substring(start, end);
+        }
+
+        String[] entries = this.entries;
+        // Spread the high bits, since hashes of short names are clustered.
+        int i = (hash ^ (hash >>> 16)) & mask;
+        String entry = entries[i];
+        if (entry != null && matches(entry, source, start, length)) {
+            return entry;
+        }
+        entry = source.substring(start, end);
+        entries[i] = entry;
+        return entry;
+    }
+
+    private static boolean matches(String name, Source source, int start, int length) {
+        return name.length() == length && source.regionMatches(start, name);
+    }
+}
@@ -0,0 +1,71 @@
+package org.sapzil.graphqlj.language;
+
+import org.sapzil.graphqlj.language.ast.NodeKind;
+
+/**
+ * Receives the nodes recognized by Parser, in document order, and builds
+ * the parse result from them: an ast Document (AstBuilder) or a
+ * FlatDocument (FlatBuilder).
+ *
+ * A node with children is reported by begin(), then its children, then
+ * end() with the mark begin() returned. The children of each kind come in
+ * the order of the arguments of the corresponding ast node constructor.
+ * Lists of arguments, directives and variable definitions are bracketed
+ * by beginList() and endList() even when empty, and an absent optional
+ * child (an operation name, a directive value or a default value) is
+ * reported by absent(), except that an unaliased field has no alias at
+ * all and a field without a selection set simply ends.
+ */
+abstract class NodeSink<R> {
+    /**
+     * Starts a node of the given kind. Returns a mark to pass to end().
+     */
+    abstract int begin(NodeKind kind, int start);
+
+    /**
+     * Ends the node started with the given mark. Its children are the
+     * nodes reported since.
+     */
+    abstract void end(NodeKind kind, int mark, int start, int end);
+
+    abstract void name(int start, int end, String value);
+
+    /**
+     * Reports the operation (query or mutation) of the operation
+     * definition being built, before its children.
+     */
+    abstract void operation(String operation);
+
+    /**
+     * Reports an INT_VALUE, FLOAT_VALUE or STRING_VALUE for the current
+     * token of the lexer, whose value is only materialized if needed.
+     */
+    abstract void literal(NodeKind kind, Lexer lexer);
+
+    /**
+     * Reports a BOOLEAN_VALUE or ENUM_VALUE with the given (interned) name.
+     */
+    abstract void value(NodeKind kind, int start, int end, String value);
+
+    /**
+     * Starts a list of nodes. Returns a mark to pass to endList().
+     */
+    abstract int beginList();
+
+    abstract void endList(int mark);
+
+    /**
+     * Reports that an optional child is absent.
+     */
+    abstract void absent();
+
+    /**
+     * Wraps the node that was just ended in a new node of the given kind.
+     */
+    abstract void wrap(NodeKind kind, int start, int end);
+
+    /**
+     * Returns the result once the document node has ended.
+     */
+    abstract R finish();
+}
@@ -0,0 +1,73 @@
+package org.sapzil.graphqlj.language;
+
+import org.sapzil.graphqlj.language.ast.Document;
+
+import java.io.IOException;
+
+/**
+ * Prints documents in a canonical form and fingerprints them, so that
+ * queries differing only in formatting share cache entries and metrics.
+ *
+ * The canonical form is the compact output of Printer, with arguments,
+ * input object fields and variable definitions sorted by name. Selections
+ * and directives keep their order, which is significant. Strings are
+ * re-escaped from their values, so a character prints the same way
+ * whether or not it was written as an escape sequence. Numbers are
+ * printed as written, so 1.0 and 1.00 stay distinct.
+ */
+public final class Normalizer {
+    private Normalizer() {
+    }
+
+    /**
+     * Returns the canonical text of the document.
+     */
+    public static String normalize(Document document) {
+        return new Printer(false, true).print(document);
+    }
+
+    /**
+     * Returns the fingerprint of the canonical text of the document: equal
+     * documents, in the sense of normalize(), have equal fingerprints.
+     */
+    public static Fingerprint fingerprint(Document document) {
+        Murmur3Hasher hasher = new Murmur3Hasher();
+        try {
+            new Printer(false, true).print(document, hasher);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return hasher.finish();
+    }
+
+    /**
+     * Returns a fingerprint of the token stream of the source, without
+     * parsing it.
+     *
+     * This only looks through whitespace, comments and commas; arguments
+     * are not reordered and strings are hashed as written. It is cheaper
+     * than fingerprint(Document) and suits a cache in front of the
+     * parser, but the two fingerprints are not comparable with each other.
+     *
+     * @throws GraphQLLanguageException if the source contains an invalid token
+     */
+    public static Fingerprint fingerprintTokens(Source source) throws GraphQLLanguageException {
+        Lexer lexer = new Lexer(source);
+        Murmur3Hasher hasher = new Murmur3Hasher();
+        boolean afterWord = false;
+        TokenKind kind;
+        while ((kind = lexer.advance()) != TokenKind.EOF) {
+            boolean word = isWord(kind);
+            if (word && afterWord) {
+                hasher.putByte(' ');
+            }
+            hasher.putSource(source, lexer.getStart(), lexer.getEnd());
+            afterWord = word;
+        }
+        return hasher.finish();
+    }
+
+    private static boolean isWord(TokenKind kind) {
+        return kind == TokenKind.NAME || kind == TokenKind.INT || kind == TokenKind.FLOAT;
+    }
+}
@@ -1,15 +1,97 @@
 package org.sapzil.graphqlj.language;
 
+/**
+ * Configuration for Parser.
+ *
+ * By default every node records its start and end offsets and the Source
+ * it came from; the corresponding Location is only created when
+ * Node.getLoc() is called. Options must not be changed while a parse
+ * using them is in progress.
+ *
+ * The limits guard against hostile input. Exceeding one fails the parse
+ * with a LimitExceededException as soon as it is detected. The token and
+ * size limits are unlimited by default; the depth is limited to
+ * DEFAULT_MAX_DEPTH, since values and types are parsed recursively.
+ */
 public class ParseOptions {
+    /**
+     * The default maximum nesting depth: far deeper than any real document,
+     * yet shallow enough that parsing it cannot overflow a thread's stack.
+     */
+    public static final int DEFAULT_MAX_DEPTH = 500;
+
+    private boolean noLocation;
+    private boolean noSource;
+    private int maxDepth = DEFAULT_MAX_DEPTH;
+    private int maxTokens = Integer.MAX_VALUE;
+    private int maxDocumentSize = Integer.MAX_VALUE;
+
     public ParseOptions() {
 
     }
 
+    /**
+     * If true, nodes do not record their location at all and
+     * Node.getLoc() returns null.
+     */
     public boolean noLocation() {
-        return false;
+        return noLocation;
     }
 
+    public ParseOptions setNoLocation(boolean noLocation) {
+        this.noLocation = noLocation;
+        return this;
+    }
+
+    /**
+     * If true, nodes record their offsets but not their Source, so
+     * Location.getSource() returns null.
+     */
     public boolean noSource() {
-        return false;
+        return noSource;
+    }
+
+    public ParseOptions setNoSource(boolean noSource) {
+        this.noSource = noSource;
+        return this;
+    }
+
+    /**
+     * The maximum nesting depth: the number of enclosing selection sets,
+     * list and input object values, and list types. Raising it much
+     * further risks a StackOverflowError on deeply nested values or types.
+     */
+    public int maxDepth() {
+        return maxDepth;
+    }
+
+    public ParseOptions setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+        return this;
+    }
+
+    /**
+     * The maximum number of tokens, not counting the end of input.
+     */
+    public int maxTokens() {
+        return maxTokens;
+    }
+
+    public ParseOptions setMaxTokens(int maxTokens) {
+        this.maxTokens = maxTokens;
+        return this;
+    }
+
+    /**
+     * The maximum length of the source, in chars (or bytes, for UTF-8
+     * sources). It is checked before anything is lexed.
+     */
+    public int maxDocumentSize() {
+        return maxDocumentSize;
+    }
+
+    public ParseOptions setMaxDocumentSize(int maxDocumentSize) {
+        this.maxDocumentSize = maxDocumentSize;
+        return this;
     }
 }
@@ -1,83 +1,130 @@
 package org.sapzil.graphqlj.language;
 
-import org.sapzil.graphqlj.language.ast.Argument;
-import org.sapzil.graphqlj.language.ast.ArrayValue;
-import org.sapzil.graphqlj.language.ast.BaseType;
-import org.sapzil.graphqlj.language.ast.BooleanValue;
-import org.sapzil.graphqlj.language.ast.Directive;
 import org.sapzil.graphqlj.language.ast.Document;
-import org.sapzil.graphqlj.language.ast.EnumValue;
-import org.sapzil.graphqlj.language.ast.Field;
-import org.sapzil.graphqlj.language.ast.FloatValue;
-import org.sapzil.graphqlj.language.ast.Fragment;
-import org.sapzil.graphqlj.language.ast.FragmentDefinition;
-import org.sapzil.graphqlj.language.ast.FragmentSpread;
-import org.sapzil.graphqlj.language.ast.InlineFragment;
-import org.sapzil.graphqlj.language.ast.IntValue;
-import org.sapzil.graphqlj.language.ast.ListType;
-import org.sapzil.graphqlj.language.ast.Name;
-import org.sapzil.graphqlj.language.ast.NonNullType;
-import org.sapzil.graphqlj.language.ast.ObjectField;
-import org.sapzil.graphqlj.language.ast.ObjectValue;
-import org.sapzil.graphqlj.language.ast.OperationDefinition;
-import org.sapzil.graphqlj.language.ast.Selection;
-import org.sapzil.graphqlj.language.ast.SelectionSet;
-import org.sapzil.graphqlj.language.ast.StringValue;
-import org.sapzil.graphqlj.language.ast.Type;
-import org.sapzil.graphqlj.language.ast.Value;
-import org.sapzil.graphqlj.language.ast.Variable;
-import org.sapzil.graphqlj.language.ast.VariableDefinition;
-
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.concurrent.Callable;
-
+import org.sapzil.graphqlj.language.ast.NodeKind;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A recursive-descent parser for GraphQL documents.
+ *
+ * The grammar is implemented once; the nodes it recognizes are reported to
+ * a NodeSink, which builds either an ast Document or a FlatDocument.
+ */
 public class Parser {
+    // Layout of a selection set frame; see parseSelectionSet().
+    private static final int FRAME_OWNER = 0;
+    private static final int FRAME_OWNER_MARK = 1;
+    private static final int FRAME_START = 2;
+    private static final int FRAME_SET_MARK = 3;
+    private static final int FRAME_SET_START = 4;
+    private static final int FRAME_SIZE = 5;
+
+    // Kinds of frame owners.
+    private static final int OWNER_ROOT = 0;
+    private static final int OWNER_FIELD = 1;
+    private static final int OWNER_INLINE_FRAGMENT = 2;
+
     public static Document parse(Source source, ParseOptions options) throws GraphQLLanguageException {
-        Parser parser = new Parser(source, options);
-        return parser.parseDocument();
+        return parse(source, options, new AstBuilder(source, options));
+    }
+
+    /**
+     * Parses the source into a FlatDocument, which stores the nodes in
+     * parallel primitive arrays instead of ast objects. Location options
+     * do not apply; offsets are always kept.
+     */
+    public static FlatDocument parseFlat(Source source, ParseOptions options) throws GraphQLLanguageException {
+        return parse(source, options, new FlatBuilder(source));
+    }
+
+    private static <R> R parse(Source source, ParseOptions options, NodeSink<R> sink) throws GraphQLLanguageException {
+        Parser parser = new Parser(source, options, sink);
+        parser.parseDocument();
+        return sink.finish();
     }
 
     private final Lexer lexer;
     private final Source source;
     private final ParseOptions options;
+    private final NodeSink<?> sink;
     private int prevEnd;
-    private Token token;
+    // Selection sets being parsed, innermost last; see parseSelectionSet().
+    private int[] frames = new int[4 * FRAME_SIZE];
+    private int frameCount;
+    private int depth;
+    // Field names of the input objects being parsed, innermost last; see
+    // parseObject().
+    private String[] objectFieldNames = new String[8];
+    private int objectFieldCount;
 
     public Parser(Source source, ParseOptions options) throws GraphQLLanguageException {
+        this(source, options, new AstBuilder(source, options));
+    }
+
+    private Parser(Source source, ParseOptions options, NodeSink<?> sink) throws GraphQLLanguageException {
         this.source = source;
         this.options = options;
+        this.sink = sink;
+        checkDocumentSize(source, options);
         this.lexer = new Lexer(source);
-        this.token = lexer.nextToken();
+        lexer.setMaxTokens(options.maxTokens());
+        lexer.advance();
     }
 
-    private Location loc(int start) {
-        if (options.noLocation()) {
-            return null;
+    /**
+     * Fails if the source exceeds the maximum document size, before any of
+     * it is lexed.
+     */
+    static void checkDocumentSize(Source source, ParseOptions options) throws GraphQLLanguageException {
+        if (source.length() > options.maxDocumentSize()) {
+            throw new LimitExceededException(
+                    source,
+                    0,
+                    "Document size of " + source.length() + " exceeds the limit of " + options.maxDocumentSize() + "."
+            );
         }
-        if (options.noSource()) {
-            return new Location(start, prevEnd);
+    }
+
+    /**
+     * Enters a nested selection set, value or type opened by the current
+     * token, failing if that exceeds the maximum depth. Must be paired with
+     * a decrement of depth.
+     */
+    private void enterNested() throws GraphQLLanguageException {
+        if (++depth > options.maxDepth()) {
+            throw new LimitExceededException(
+                    source,
+                    lexer.getStart(),
+                    "Document nesting exceeds the limit of " + options.maxDepth() + "."
+            );
         }
-        return new Location(start, prevEnd, source);
+    }
+
+    /**
+     * Ends the node started at the given position, at the end of the
+     * previous token.
+     */
+    private void end(NodeKind kind, int mark, int start) {
+        sink.end(kind, mark, start, prevEnd);
     }
 
     /**
      * Moves the internal parser object to the next lexed token.
      */
     private void advance() throws GraphQLLanguageException {
-        int prevEnd = token.getEnd();
+        int prevEnd = lexer.getEnd();
         this.prevEnd = prevEnd;
-        token = lexer.nextToken(prevEnd);
+        lexer.advance(prevEnd);
     }
 
     /**
      * Determines if the next token is of a given kind
      */
     private boolean peek(TokenKind kind) {
-        return token.getKind() == kind;
+        return lexer.getKind() == kind;
     }
 
     /**
@@ -85,7 +132,7 @@ public class Parser {
      * the parser. Otherwise, do not change the parser state and return false.
      */
     private boolean skip(TokenKind kind) throws GraphQLLanguageException {
-        boolean match = token.getKind() == kind;
+        boolean match = lexer.getKind() == kind;
         if (match) {
             advance();
         }
@@ -93,37 +140,53 @@ public class Parser {
     }
 
     /**
-     * If the next token is of the given kind, return that token after advancing
-     * the parser. Otherwise, do not change the parser state and return false.
+     * If the next token is of the given kind, advance the parser. Otherwise,
+     * do not change the parser state and throw an error.
      */
-    private Token expect(TokenKind kind) throws GraphQLLanguageException {
-        Token token = this.token;
-        if (token.getKind() == kind) {
+    private void expect(TokenKind kind) throws GraphQLLanguageException {
+        if (lexer.getKind() == kind) {
             advance();
-            return token;
+            return;
         }
         throw new GraphQLLanguageException(
                 source,
-                token.getStart(),
-                "Expected " + kind.getDesc() + ", found " + token.getDesc()
+                lexer.getStart(),
+                "Expected " + kind.getDesc() + ", found " + lexer.getToken().getDesc()
         );
     }
 
     /**
-     * If the next token is a keyword with the given value, return that token after
-     * advancing the parser. Otherwise, do not change the parser state and return
-     * false.
+     * If the next token is of the given kind, return its value after
+     * advancing the parser. Otherwise, do not change the parser state and
+     * throw an error.
      */
-    private Token expectKeyword(String value) throws GraphQLLanguageException {
-        Token token = this.token;
-        if (token.getKind() == TokenKind.NAME && value.equals(token.getValue())) {
+    private String expectValue(TokenKind kind) throws GraphQLLanguageException {
+        if (lexer.getKind() == kind) {
+            String value = lexer.getValue();
             advance();
-            return token;
+            return value;
         }
         throw new GraphQLLanguageException(
                 source,
-                token.getStart(),
-                "Expected \"" + value + "\", found " + token.getDesc()
+                lexer.getStart(),
+                "Expected " + kind.getDesc() + ", found " + lexer.getToken().getDesc()
+        );
+    }
+
+    /**
+     * If the next token is a keyword with the given value, advance the
+     * parser. Otherwise, do not change the parser state and throw an error.
+     * The value must be one of the NameTable keyword constants.
+     */
+    private void expectKeyword(String value) throws GraphQLLanguageException {
+        if (lexer.getKind() == TokenKind.NAME && lexer.getValue() == value) {
+            advance();
+            return;
+        }
+        throw new GraphQLLanguageException(
+                source,
+                lexer.getStart(),
+                "Expected \"" + value + "\", found " + lexer.getToken().getDesc()
         );
     }
 
@@ -132,7 +195,7 @@ public class Parser {
      * is encountered.
      */
     private GraphQLLanguageException unexpected() {
-        return unexpected(token);
+        return unexpected(lexer.getToken());
     }
 
     /**
@@ -149,70 +212,32 @@ public class Parser {
     }
 
     /**
-     * Returns a possibly empty list of parse nodes, determined by
-     * the parseFn. This list begins with a lex token of openKind
-     * and ends with a lex token of closeKind. Advances the parser
-     * to the next lex token after the closing token.
+     * Converts a name lex token into a name parse node, and returns its
+     * value.
      */
-    private <T> List<T> any(TokenKind openKind, Callable<T> parseFn, TokenKind closeKind) throws GraphQLLanguageException {
-        expect(openKind);
-        List<T> nodes = new ArrayList<>();
-        while (!skip(closeKind)) {
-            try {
-                nodes.add(parseFn.call());
-            } catch (GraphQLLanguageException e) {
-                throw e;
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
-        }
-        return nodes;
-    }
-
-    /**
-     * Returns a non-empty list of parse nodes, determined by
-     * the parseFn. This list begins with a lex token of openKind
-     * and ends with a lex token of closeKind. Advances the parser
-     * to the next lex token after the closing token.
-     */
-    private <T> List<T> many(TokenKind openKind, Callable<T> parseFn, TokenKind closeKind) throws GraphQLLanguageException {
-        expect(openKind);
-        List<T> nodes = new ArrayList<>();
-        try {
-            nodes.add(parseFn.call());
-            while (!skip(closeKind)) {
-                nodes.add(parseFn.call());
-            }
-        } catch (GraphQLLanguageException e) {
-            throw e;
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
-        return nodes;
-    }
-
-    /**
-     * Converts a name lex token into a name parse node.
-     */
-    private Name parseName() throws GraphQLLanguageException {
-        Token token = expect(TokenKind.NAME);
-        return new Name(loc(token.getStart()), token.getValue());
+    private String parseName() throws GraphQLLanguageException {
+        int start = lexer.getStart();
+        int end = lexer.getEnd();
+        String value = expectValue(TokenKind.NAME);
+        sink.name(start, end, value);
+        return value;
     }
 
 
     // Implements the parsing rules in the Document section.
 
-    private Document parseDocument() throws GraphQLLanguageException {
-        int start = token.getStart();
-        List definitions = new ArrayList<>();
+    private void parseDocument() throws GraphQLLanguageException {
+        int start = lexer.getStart();
+        int mark = sink.begin(NodeKind.DOCUMENT, start);
         do {
             if (peek(TokenKind.BRACE_L)) {
-                definitions.add(parseOperationDefinition());
+                parseOperationDefinition();
             } else if (peek(TokenKind.NAME)) {
-                if ("query".equals(token.getValue()) || "mutation".equals(token.getValue())) {
-                    definitions.add(parseOperationDefinition());
-                } else if ("fragment".equals(token.getValue())) {
-                    definitions.add(parseFragmentDefinition());
+                String value = lexer.getValue();
+                if (value == NameTable.QUERY || value == NameTable.MUTATION) {
+                    parseOperationDefinition();
+                } else if (value == NameTable.FRAGMENT) {
+                    parseFragmentDefinition();
                 } else {
                     throw unexpected();
                 }
@@ -220,228 +245,297 @@ public class Parser {
                 throw unexpected();
             }
         } while (!skip(TokenKind.EOF));
-        return new Document(definitions, loc(start));
+        end(NodeKind.DOCUMENT, mark, start);
     }
 
 
     // Implements the parsing rules in the Operations section.
 
-    private OperationDefinition parseOperationDefinition() throws GraphQLLanguageException {
-        int start = token.getStart();
+    private void parseOperationDefinition() throws GraphQLLanguageException {
+        int start = lexer.getStart();
+        int mark = sink.begin(NodeKind.OPERATION_DEFINITION, start);
         if (peek(TokenKind.BRACE_L)) {
-            return new OperationDefinition(loc(start), "query", null, null, Collections.emptyList(), parseSelectionSet());
+            sink.operation(NameTable.QUERY);
+            sink.absent();
+            sink.endList(sink.beginList());
+            sink.endList(sink.beginList());
+            parseSelectionSet();
+            end(NodeKind.OPERATION_DEFINITION, mark, start);
+            return;
         }
-        Token operationToken = expect(TokenKind.NAME);
-        String operation = operationToken.getValue();
-        return new OperationDefinition(loc(start), operation, parseName(), parseVariableDefinitions(), parseDirectives(), parseSelectionSet());
-    }
-
-    private List<VariableDefinition> parseVariableDefinitions() throws GraphQLLanguageException {
-        return peek(TokenKind.PAREN_L) ?
-                many(
-                        TokenKind.PAREN_L,
-                        new Callable<VariableDefinition>() {
-                            @Override public VariableDefinition call() throws Exception {
-                                return parseVariableDefinition();
-                            }
-                        },
-                        TokenKind.PAREN_R
-                ) :
-            Collections.emptyList();
-    }
-
-    private VariableDefinition parseVariableDefinition() throws GraphQLLanguageException {
-        int start = token.getStart();
-        Variable variable = parseVariable();
+        sink.operation(expectValue(TokenKind.NAME));
+        parseName();
+        parseVariableDefinitions();
+        parseDirectives();
+        parseSelectionSet();
+        end(NodeKind.OPERATION_DEFINITION, mark, start);
+    }
+
+    private void parseVariableDefinitions() throws GraphQLLanguageException {
+        int list = sink.beginList();
+        if (skip(TokenKind.PAREN_L)) {
+            do {
+                parseVariableDefinition();
+            } while (!skip(TokenKind.PAREN_R));
+        }
+        sink.endList(list);
+    }
+
+    private void parseVariableDefinition() throws GraphQLLanguageException {
+        int start = lexer.getStart();
+        int mark = sink.begin(NodeKind.VARIABLE_DEFINITION, start);
+        parseVariable();
         expect(TokenKind.COLON);
-        Type type = parseType();
-        Value defaultValue = skip(TokenKind.EQUALS) ? parseValue(true) : null;
-        return new VariableDefinition(loc(start), variable, type, defaultValue);
+        parseType();
+        if (skip(TokenKind.EQUALS)) {
+            parseValue(true);
+        } else {
+            sink.absent();
+        }
+        end(NodeKind.VARIABLE_DEFINITION, mark, start);
     }
 
-    private Variable parseVariable() throws GraphQLLanguageException {
-        int start = token.getStart();
+    private void parseVariable() throws GraphQLLanguageException {
+        int start = lexer.getStart();
+        int mark = sink.begin(NodeKind.VARIABLE, start);
         expect(TokenKind.DOLLAR);
-        return new Variable(loc(start), parseName());
+        parseName();
+        end(NodeKind.VARIABLE, mark, start);
     }
 
-    private SelectionSet parseSelectionSet() throws GraphQLLanguageException {
-        int start = token.getStart();
-        return new SelectionSet(loc(start), many(TokenKind.BRACE_L, new Callable<Selection>() {
-            @Override public Selection call() throws Exception {
-                return parseSelection();
+    /**
+     * Parses a selection set together with everything nested in it.
+     *
+     * Nested selection sets are tracked on an explicit stack of frames
+     * instead of by recursion, so the nesting depth a document can have
+     * does not depend on the size of the thread's stack. Each frame holds
+     * the marks of the selection set and of the field or inline fragment
+     * that owns it, which are ended once the set is closed.
+     */
+    private void parseSelectionSet() throws GraphQLLanguageException {
+        openSelectionSet(OWNER_ROOT, -1, -1);
+        while (true) {
+            int start = lexer.getStart();
+            if (skip(TokenKind.SPREAD)) {
+                if (peek(TokenKind.NAME) && lexer.getValue() == NameTable.ON) {
+                    int mark = sink.begin(NodeKind.INLINE_FRAGMENT, start);
+                    advance();
+                    parseName();
+                    parseDirectives();
+                    openSelectionSet(OWNER_INLINE_FRAGMENT, mark, start);
+                    continue;
+                }
+                int mark = sink.begin(NodeKind.FRAGMENT_SPREAD, start);
+                parseName();
+                parseDirectives();
+                end(NodeKind.FRAGMENT_SPREAD, mark, start);
+            } else {
+                // Corresponds to both Field and Alias in the spec
+                int mark = sink.begin(NodeKind.FIELD, start);
+                parseName();
+                if (skip(TokenKind.COLON)) {
+                    parseName();
+                }
+                parseArguments();
+                parseDirectives();
+                if (peek(TokenKind.BRACE_L)) {
+                    openSelectionSet(OWNER_FIELD, mark, start);
+                    continue;
+                }
+                end(NodeKind.FIELD, mark, start);
             }
-        }, TokenKind.BRACE_R));
-    }
 
-    private Selection parseSelection() throws GraphQLLanguageException {
-        return peek(TokenKind.SPREAD) ?
-                parseFragment() :
-                parseField();
+            // Close every selection set that ends here, and its owner.
+            while (skip(TokenKind.BRACE_R)) {
+                depth--;
+                int frame = --frameCount * FRAME_SIZE;
+                end(NodeKind.SELECTION_SET, frames[frame + FRAME_SET_MARK], frames[frame + FRAME_SET_START]);
+                switch (frames[frame + FRAME_OWNER]) {
+                case OWNER_FIELD:
+                    end(NodeKind.FIELD, frames[frame + FRAME_OWNER_MARK], frames[frame + FRAME_START]);
+                    break;
+                case OWNER_INLINE_FRAGMENT:
+                    end(NodeKind.INLINE_FRAGMENT, frames[frame + FRAME_OWNER_MARK], frames[frame + FRAME_START]);
+                    break;
+                default:
+                    return;
+                }
+            }
+        }
     }
 
     /**
-     * Corresponds to both Field and Alias in the spec
+     * Consumes the opening brace of a selection set owned by a node with
+     * the given mark and start position, and pushes a frame for it.
      */
-    private Field parseField() throws GraphQLLanguageException {
-        int start = token.getStart();
-
-        Name nameOrAlias = parseName();
-        Name alias;
-        Name name;
-        if (skip(TokenKind.COLON)) {
-            alias = nameOrAlias;
-            name = parseName();
-        } else {
-            alias = null;
-            name = nameOrAlias;
+    private void openSelectionSet(int owner, int ownerMark, int start) throws GraphQLLanguageException {
+        int setStart = lexer.getStart();
+        enterNested();
+        int setMark = sink.begin(NodeKind.SELECTION_SET, setStart);
+        expect(TokenKind.BRACE_L);
+        int frame = frameCount++ * FRAME_SIZE;
+        if (frame == frames.length) {
+            frames = Arrays.copyOf(frames, frame * 2);
         }
-
-        return new Field(loc(start), alias, name, parseArguments(), parseDirectives(),
-                peek(TokenKind.BRACE_L) ? parseSelectionSet() : null);
-    }
-
-    private List<Argument> parseArguments() throws GraphQLLanguageException {
-        return peek(TokenKind.PAREN_L) ?
-                many(TokenKind.PAREN_L, new Callable<Argument>() {
-                    @Override public Argument call() throws Exception {
-                        return parseArgument();
-                    }
-                }, TokenKind.PAREN_R) :
-            Collections.emptyList();
+        frames[frame + FRAME_OWNER] = owner;
+        frames[frame + FRAME_OWNER_MARK] = ownerMark;
+        frames[frame + FRAME_START] = start;
+        frames[frame + FRAME_SET_MARK] = setMark;
+        frames[frame + FRAME_SET_START] = setStart;
+    }
+
+    private void parseArguments() throws GraphQLLanguageException {
+        int list = sink.beginList();
+        if (skip(TokenKind.PAREN_L)) {
+            do {
+                parseArgument();
+            } while (!skip(TokenKind.PAREN_R));
+        }
+        sink.endList(list);
     }
 
-    private Argument parseArgument() throws Exception {
-        int start = token.getStart();
-        Name name = parseName();
+    private void parseArgument() throws GraphQLLanguageException {
+        int start = lexer.getStart();
+        int mark = sink.begin(NodeKind.ARGUMENT, start);
+        parseName();
         expect(TokenKind.COLON);
-        Value value = parseValue(false);
-        return new Argument(loc(start), name, value);
+        parseValue(false);
+        end(NodeKind.ARGUMENT, mark, start);
     }
 
 
     // Implements the parsing rules in the Fragments section.
 
-    /**
-     * Corresponds to both FragmentSpread and InlineFragment in the spec
-     */
-    private Fragment parseFragment() throws GraphQLLanguageException {
-        int start = token.getStart();
-        expect(TokenKind.SPREAD);
-        if ("on".equals(token.getValue())) {
-            advance();
-            return new InlineFragment(loc(start), parseName(), parseDirectives(), parseSelectionSet());
-        }
-        return new FragmentSpread(loc(start), parseName(), parseDirectives());
-    }
-
-    private FragmentDefinition parseFragmentDefinition() throws GraphQLLanguageException {
-        int start = token.getStart();
-        expectKeyword("fragment");
-        Name name = parseName();
-        expectKeyword("on");
-        Name typeCondition = parseName();
-        List<Directive> directives = parseDirectives();
-        SelectionSet selectionSet = parseSelectionSet();
-        return new FragmentDefinition(loc(start), name, typeCondition, directives, selectionSet);
+    private void parseFragmentDefinition() throws GraphQLLanguageException {
+        int start = lexer.getStart();
+        int mark = sink.begin(NodeKind.FRAGMENT_DEFINITION, start);
+        expectKeyword(NameTable.FRAGMENT);
+        parseName();
+        expectKeyword(NameTable.ON);
+        parseName();
+        parseDirectives();
+        parseSelectionSet();
+        end(NodeKind.FRAGMENT_DEFINITION, mark, start);
     }
 
 
     // Implements the parsing rules in the Values section.
 
-    private Value parseVariableValue() throws GraphQLLanguageException {
-        return parseValue(false);
-    }
-
-    private Value parseConstValue() throws GraphQLLanguageException {
-        return parseValue(true);
-    }
-
-    private Value parseValue(boolean isConst) throws GraphQLLanguageException {
-        Token token = this.token;
-        switch (token.getKind()) {
+    private void parseValue(boolean isConst) throws GraphQLLanguageException {
+        switch (lexer.getKind()) {
         case BRACKET_L:
-            return parseArray(isConst);
+            parseArray(isConst);
+            return;
         case BRACE_L:
-            return parseObject(isConst);
+            parseObject(isConst);
+            return;
         case INT:
+            sink.literal(NodeKind.INT_VALUE, lexer);
             advance();
-            return new IntValue(loc(token.getStart()), token.getValue());
+            return;
         case FLOAT:
+            sink.literal(NodeKind.FLOAT_VALUE, lexer);
             advance();
-            return new FloatValue(loc(token.getStart()), token.getValue());
+            return;
         case STRING:
+            sink.literal(NodeKind.STRING_VALUE, lexer);
             advance();
-            return new StringValue(loc(token.getStart()), token.getValue());
+            return;
         case NAME:
+            String value = lexer.getValue();
+            sink.value(value == NameTable.TRUE || value == NameTable.FALSE ? NodeKind.BOOLEAN_VALUE : NodeKind.ENUM_VALUE,
+                    lexer.getStart(), lexer.getEnd(), value);
             advance();
-            switch (token.getValue()) {
-            case "true":
-            case "false":
-                return new BooleanValue(loc(token.getStart()), "true".equals(token.getValue()));
-            }
-            return new EnumValue(loc(token.getStart()), token.getValue());
+            return;
         case DOLLAR:
             if (!isConst) {
-                return parseVariable();
+                parseVariable();
+                return;
             }
             break;
         }
         throw unexpected();
     }
 
-    private ArrayValue parseArray(boolean isConst) throws GraphQLLanguageException {
-        int start = token.getStart();
-        Callable<Value> item = isConst ? new Callable<Value>() {
-            @Override public Value call() throws Exception {
-                return parseConstValue();
-            }
-        } : new Callable<Value>() {
-            @Override public Value call() throws Exception {
-                return parseVariableValue();
-            }
-        };
-        return new ArrayValue(loc(start), any(TokenKind.BRACKET_L, item, TokenKind.BRACKET_R));
+    private void parseArray(boolean isConst) throws GraphQLLanguageException {
+        int start = lexer.getStart();
+        enterNested();
+        int mark = sink.begin(NodeKind.ARRAY_VALUE, start);
+        expect(TokenKind.BRACKET_L);
+        while (!skip(TokenKind.BRACKET_R)) {
+            parseValue(isConst);
+        }
+        end(NodeKind.ARRAY_VALUE, mark, start);
+        depth--;
     }
 
-    private ObjectValue parseObject(boolean isConst) throws GraphQLLanguageException {
-        int start = token.getStart();
+    private void parseObject(boolean isConst) throws GraphQLLanguageException {
+        int start = lexer.getStart();
+        enterNested();
+        int mark = sink.begin(NodeKind.OBJECT_VALUE, start);
         expect(TokenKind.BRACE_L);
-        Map<String, Boolean> fieldNames = new HashMap<>();
-        List<ObjectField> fields = new ArrayList<>();
+        int base = objectFieldCount;
+        // Names seen so far; only built for objects with many fields.
+        Set<String> fieldNames = null;
         while (!skip(TokenKind.BRACE_R)) {
-            fields.add(parseObjectField(isConst, fieldNames));
+            int fieldStart = lexer.getStart();
+            int fieldMark = sink.begin(NodeKind.OBJECT_FIELD, fieldStart);
+            String fieldName = parseName();
+            if (fieldNames == null && objectFieldCount - base >= 8) {
+                fieldNames = new HashSet<>(Arrays.asList(objectFieldNames).subList(base, objectFieldCount));
+            }
+            if (fieldNames != null ? !fieldNames.add(fieldName) : containsField(base, fieldName)) {
+                throw new GraphQLLanguageException(source, fieldStart, "Duplicate input object field " + fieldName + ".");
+            }
+            pushFieldName(fieldName);
+            expect(TokenKind.COLON);
+            parseValue(isConst);
+            end(NodeKind.OBJECT_FIELD, fieldMark, fieldStart);
         }
-        return new ObjectValue(loc(start), fields);
+        Arrays.fill(objectFieldNames, base, objectFieldCount, null);
+        objectFieldCount = base;
+        end(NodeKind.OBJECT_VALUE, mark, start);
+        depth--;
     }
 
-    private ObjectField parseObjectField(boolean isConst, Map<String, Boolean> fieldNames) throws GraphQLLanguageException {
-        int start = token.getStart();
-        Name name = parseName();
-        if (fieldNames.containsKey(name.getValue())) {
-            throw new GraphQLLanguageException(source, start, "Duplicate input object field " + name.getValue() + ".");
+    private void pushFieldName(String name) {
+        if (objectFieldCount == objectFieldNames.length) {
+            objectFieldNames = Arrays.copyOf(objectFieldNames, objectFieldCount * 2);
         }
-        fieldNames.put(name.getValue(), true);
-        expect(TokenKind.COLON);
-        Value value = parseValue(isConst);
-        return new ObjectField(loc(start), name, value);
+        objectFieldNames[objectFieldCount++] = name;
+    }
+
+    private boolean containsField(int base, String name) {
+        for (int i = base; i < objectFieldCount; i++) {
+            if (objectFieldNames[i].equals(name)) {
+                return true;
+            }
+        }
+        return false;
     }
 
 
     // Implements the parsing rules in the Directives section.
 
-    private List<Directive> parseDirectives() throws GraphQLLanguageException {
-        List<Directive> directives = new ArrayList<>();
+    private void parseDirectives() throws GraphQLLanguageException {
+        int list = sink.beginList();
         while (peek(TokenKind.AT)) {
-            directives.add(parseDirective());
+            parseDirective();
         }
-        return directives;
+        sink.endList(list);
     }
 
-    private Directive parseDirective() throws GraphQLLanguageException {
-        int start = token.getStart();
+    private void parseDirective() throws GraphQLLanguageException {
+        int start = lexer.getStart();
+        int mark = sink.begin(NodeKind.DIRECTIVE, start);
         expect(TokenKind.AT);
-        return new Directive(loc(start), parseName(), skip(TokenKind.COLON) ? parseValue(false) : null);
+        parseName();
+        if (skip(TokenKind.COLON)) {
+            parseValue(false);
+        } else {
+            sink.absent();
+        }
+        end(NodeKind.DIRECTIVE, mark, start);
     }
     
 
@@ -450,19 +544,23 @@ public class Parser {
     /**
      * Handles the Type: TypeName, ListType, and NonNullType parsing rules.
      */
-    private Type parseType() throws GraphQLLanguageException {
-        int start = token.getStart();
-        Type type;
-        if (skip(TokenKind.BRACKET_L)) {
-            type = parseType();
+    private void parseType() throws GraphQLLanguageException {
+        int start = lexer.getStart();
+        if (peek(TokenKind.BRACKET_L)) {
+            enterNested();
+            int mark = sink.begin(NodeKind.LIST_TYPE, start);
+            advance();
+            parseType();
             expect(TokenKind.BRACKET_R);
-            type = new ListType(loc(start), type);
+            depth--;
+            end(NodeKind.LIST_TYPE, mark, start);
         } else {
-            type = new BaseType(loc(start), parseName());
+            int mark = sink.begin(NodeKind.BASE_TYPE, start);
+            parseName();
+            end(NodeKind.BASE_TYPE, mark, start);
         }
         if (skip(TokenKind.BANG)) {
-            return new NonNullType(loc(start), type);
+            sink.wrap(NodeKind.NON_NULL_TYPE, start, prevEnd);
         }
-        return type;
     }
 }
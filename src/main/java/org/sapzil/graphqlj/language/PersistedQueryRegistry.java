@@ -0,0 +1,174 @@
+package org.sapzil.graphqlj.language;
+
+import org.sapzil.graphqlj.language.ast.Document;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A registry of persisted queries, addressed by the SHA-256 hash of their
+ * text.
+ *
+ * Clients that send only the hash of a query are resolved to the
+ * pre-parsed Document without lexing anything. Hashes are the lowercase
+ * hex encoding of the SHA-256 digest of the UTF-8 encoded body.
+ */
+public final class PersistedQueryRegistry {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final ParseOptions options;
+    private final ConcurrentHashMap<String, Document> documents = new ConcurrentHashMap<>();
+
+    public PersistedQueryRegistry(ParseOptions options) {
+        this.options = options;
+    }
+
+    /**
+     * Returns the hash under which the given body is registered.
+     */
+    public static String hash(String body) {
+        return hex(digest().digest(body.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Returns the hash under which the given source is registered. UTF-8
+     * sources are hashed without being decoded.
+     */
+    public static String hash(Source source) {
+        ByteBuffer bytes = source.utf8Bytes();
+        if (bytes == null) {
+            return hash(source.getBody());
+        }
+        MessageDigest digest = digest();
+        digest.update(bytes);
+        return hex(digest.digest());
+    }
+
+    private static MessageDigest digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
+    /**
+     * Returns the document registered under the given hash, or null.
+     */
+    public Document get(String hash) {
+        return documents.get(hash);
+    }
+
+    /**
+     * Parses and registers the given source, returning its hash.
+     */
+    public String register(Source source) throws GraphQLLanguageException {
+        String hash = hash(source);
+        documents.put(hash, Parser.parse(source, options));
+        return hash;
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    /**
+     * Registers every .graphql file in the given directory, parsing them in
+     * parallel on the given number of threads. Each file holds one
+     * persisted query and is used as the name of its Source.
+     *
+     * Returns the number of files registered. If any file fails to read or
+     * parse, the first such error is thrown and none of the files are
+     * registered.
+     */
+    public int loadDirectory(Path directory, int parallelism) throws IOException, GraphQLLanguageException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.graphql")) {
+            for (Path file : stream) {
+                if (Files.isRegularFile(file)) {
+                    files.add(file);
+                }
+            }
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            List<Future<Entry>> futures = new ArrayList<>(files.size());
+            for (final Path file : files) {
+                futures.add(executor.submit(new Callable<Entry>() {
+                    @Override public Entry call() throws Exception {
+                        String body = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+                        Document document = Parser.parse(new Source(body, file.toString()), options);
+                        return new Entry(hash(body), document);
+                    }
+                }));
+            }
+
+            List<Entry> entries = new ArrayList<>(futures.size());
+            for (Future<Entry> future : futures) {
+                entries.add(await(future));
+            }
+            for (Entry entry : entries) {
+                documents.put(entry.hash, entry.document);
+            }
+            return entries.size();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Entry await(Future<Entry> future) throws IOException, GraphQLLanguageException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading persisted queries", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof GraphQLLanguageException) {
+                throw (GraphQLLanguageException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    private static final class Entry {
+        final String hash;
+        final Document document;
+
+        Entry(String hash, Document document) {
+            this.hash = hash;
+            this.document = document;
+        }
+    }
+}
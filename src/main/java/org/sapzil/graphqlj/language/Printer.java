@@ -0,0 +1,553 @@
+package org.sapzil.graphqlj.language;
+
+import org.sapzil.graphqlj.language.ast.Argument;
+import org.sapzil.graphqlj.language.ast.ArrayValue;
+import org.sapzil.graphqlj.language.ast.BaseType;
+import org.sapzil.graphqlj.language.ast.BooleanValue;
+import org.sapzil.graphqlj.language.ast.Definition;
+import org.sapzil.graphqlj.language.ast.Directive;
+import org.sapzil.graphqlj.language.ast.Document;
+import org.sapzil.graphqlj.language.ast.EnumValue;
+import org.sapzil.graphqlj.language.ast.Field;
+import org.sapzil.graphqlj.language.ast.FloatValue;
+import org.sapzil.graphqlj.language.ast.FragmentDefinition;
+import org.sapzil.graphqlj.language.ast.FragmentSpread;
+import org.sapzil.graphqlj.language.ast.InlineFragment;
+import org.sapzil.graphqlj.language.ast.IntValue;
+import org.sapzil.graphqlj.language.ast.ListType;
+import org.sapzil.graphqlj.language.ast.Name;
+import org.sapzil.graphqlj.language.ast.Node;
+import org.sapzil.graphqlj.language.ast.NodeKind;
+import org.sapzil.graphqlj.language.ast.NonNullType;
+import org.sapzil.graphqlj.language.ast.ObjectField;
+import org.sapzil.graphqlj.language.ast.ObjectValue;
+import org.sapzil.graphqlj.language.ast.OperationDefinition;
+import org.sapzil.graphqlj.language.ast.Selection;
+import org.sapzil.graphqlj.language.ast.SelectionSet;
+import org.sapzil.graphqlj.language.ast.StringValue;
+import org.sapzil.graphqlj.language.ast.Type;
+import org.sapzil.graphqlj.language.ast.Value;
+import org.sapzil.graphqlj.language.ast.Variable;
+import org.sapzil.graphqlj.language.ast.VariableDefinition;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Prints AST nodes back to GraphQL text.
+ *
+ * In pretty mode the output is indented by two spaces per level, with one
+ * selection per line and blank lines between definitions. In compact mode
+ * whitespace and commas are left out, except for a single space between
+ * two adjacent names or numbers. Strings are always re-escaped from their
+ * values; numbers are printed as written.
+ *
+ * Output goes straight to an Appendable, or to a byte buffer that the
+ * printer reuses from one call to the next, without building intermediate
+ * strings. A Printer keeps per-call state and the buffer, so it must not
+ * be shared between threads.
+ */
+public final class Printer {
+    private static final Comparator<Argument> ARGUMENT_ORDER = new Comparator<Argument>() {
+        @Override public int compare(Argument a, Argument b) {
+            return a.getName().getValue().compareTo(b.getName().getValue());
+        }
+    };
+
+    private static final Comparator<ObjectField> OBJECT_FIELD_ORDER = new Comparator<ObjectField>() {
+        @Override public int compare(ObjectField a, ObjectField b) {
+            return a.getName().getValue().compareTo(b.getName().getValue());
+        }
+    };
+
+    private static final Comparator<VariableDefinition> VARIABLE_DEFINITION_ORDER = new Comparator<VariableDefinition>() {
+        @Override public int compare(VariableDefinition a, VariableDefinition b) {
+            return a.getVariable().getName().getValue().compareTo(b.getVariable().getName().getValue());
+        }
+    };
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final boolean pretty;
+    // Sorts arguments, object fields and variable definitions (see Normalizer).
+    private final boolean canonical;
+
+    private Appendable out;
+    private int indent;
+    // Whether the last token printed was a name or a number.
+    private boolean afterWord;
+    private ByteArrayOutput buffer;
+
+    public Printer(boolean pretty) {
+        this(pretty, false);
+    }
+
+    Printer(boolean pretty, boolean canonical) {
+        this.pretty = pretty;
+        this.canonical = canonical;
+    }
+
+    /**
+     * Returns the text of the node.
+     */
+    public String print(Node node) {
+        StringBuilder sb = new StringBuilder();
+        try {
+            print(node, sb);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Appends the text of the node to the given Appendable.
+     */
+    public void print(Node node, Appendable out) throws IOException {
+        this.out = out;
+        this.indent = 0;
+        this.afterWord = false;
+        try {
+            printNode(node);
+        } finally {
+            this.out = null;
+        }
+    }
+
+    /**
+     * Returns the text of the node encoded as UTF-8.
+     *
+     * The returned buffer wraps the printer's own array, which is reused:
+     * its contents are only valid until the next call to this printer.
+     */
+    public ByteBuffer printUtf8(Node node) {
+        if (buffer == null) {
+            buffer = new ByteArrayOutput();
+        }
+        buffer.length = 0;
+        try {
+            print(node, buffer);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        buffer.flushSurrogate();
+        return ByteBuffer.wrap(buffer.bytes, 0, buffer.length).slice();
+    }
+
+    private void printNode(Node node) throws IOException {
+        switch (node.getKind()) {
+        case DOCUMENT:
+            printDocument((Document) node);
+            break;
+        case OPERATION_DEFINITION:
+        case FRAGMENT_DEFINITION:
+            printDefinition((Definition) node);
+            break;
+        case VARIABLE_DEFINITION:
+            printVariableDefinition((VariableDefinition) node);
+            break;
+        case SELECTION_SET:
+            printSelectionSet((SelectionSet) node);
+            break;
+        case FIELD:
+        case FRAGMENT_SPREAD:
+        case INLINE_FRAGMENT:
+            printSelection((Selection) node);
+            break;
+        case ARGUMENT: {
+            Argument argument = (Argument) node;
+            printNameValue(argument.getName(), argument.getValue());
+            break;
+        }
+        case OBJECT_FIELD: {
+            ObjectField field = (ObjectField) node;
+            printNameValue(field.getName(), field.getValue());
+            break;
+        }
+        case DIRECTIVE:
+            printDirective((Directive) node);
+            break;
+        case BASE_TYPE:
+        case LIST_TYPE:
+        case NON_NULL_TYPE:
+            printType((Type) node);
+            break;
+        case NAME:
+            word(((Name) node).getValue());
+            break;
+        default:
+            printValue((Value) node);
+        }
+    }
+
+    private void printDocument(Document document) throws IOException {
+        List<Definition> definitions = document.getDefinitions();
+        for (int i = 0; i < definitions.size(); i++) {
+            if (pretty && i > 0) {
+                out.append("\n\n");
+            }
+            printDefinition(definitions.get(i));
+        }
+        if (pretty && !definitions.isEmpty()) {
+            out.append('\n');
+        }
+    }
+
+    private void printDefinition(Definition definition) throws IOException {
+        if (definition.getKind() == NodeKind.OPERATION_DEFINITION) {
+            printOperationDefinition((OperationDefinition) definition);
+        } else {
+            printFragmentDefinition((FragmentDefinition) definition);
+        }
+    }
+
+    private void printOperationDefinition(OperationDefinition operation) throws IOException {
+        if (operation.getName() == null) {
+            // The query shorthand, which has no variables or directives.
+            printSelectionSet(operation.getSelectionSet());
+            return;
+        }
+        word(operation.getOperation());
+        word(operation.getName().getValue());
+        List<VariableDefinition> variableDefinitions = operation.getVariableDefinitions();
+        if (canonical) {
+            variableDefinitions = sorted(variableDefinitions, VARIABLE_DEFINITION_ORDER);
+        }
+        if (!variableDefinitions.isEmpty()) {
+            punctuator('(');
+            for (int i = 0; i < variableDefinitions.size(); i++) {
+                if (i > 0) {
+                    separator();
+                }
+                printVariableDefinition(variableDefinitions.get(i));
+            }
+            punctuator(')');
+        }
+        printDirectives(operation.getDirectives());
+        space();
+        printSelectionSet(operation.getSelectionSet());
+    }
+
+    private void printVariableDefinition(VariableDefinition variableDefinition) throws IOException {
+        printVariable(variableDefinition.getVariable());
+        colon();
+        printType(variableDefinition.getType());
+        if (variableDefinition.getDefaultValue() != null) {
+            space();
+            punctuator('=');
+            space();
+            printValue(variableDefinition.getDefaultValue());
+        }
+    }
+
+    private void printFragmentDefinition(FragmentDefinition fragment) throws IOException {
+        word("fragment");
+        word(fragment.getName().getValue());
+        word("on");
+        word(fragment.getTypeCondition().getValue());
+        printDirectives(fragment.getDirectives());
+        space();
+        printSelectionSet(fragment.getSelectionSet());
+    }
+
+    private void printSelectionSet(SelectionSet selectionSet) throws IOException {
+        List<Selection> selections = selectionSet.getSelections();
+        punctuator('{');
+        indent++;
+        for (int i = 0; i < selections.size(); i++) {
+            newline();
+            printSelection(selections.get(i));
+        }
+        indent--;
+        newline();
+        punctuator('}');
+    }
+
+    private void printSelection(Selection selection) throws IOException {
+        switch (selection.getKind()) {
+        case FIELD:
+            printField((Field) selection);
+            break;
+        case FRAGMENT_SPREAD: {
+            FragmentSpread spread = (FragmentSpread) selection;
+            punctuator("...");
+            word(spread.getName().getValue());
+            printDirectives(spread.getDirectives());
+            break;
+        }
+        default: {
+            InlineFragment fragment = (InlineFragment) selection;
+            punctuator("...");
+            space();
+            word("on");
+            word(fragment.getTypeCondition().getValue());
+            printDirectives(fragment.getDirectives());
+            space();
+            printSelectionSet(fragment.getSelectionSet());
+        }
+        }
+    }
+
+    private void printField(Field field) throws IOException {
+        if (field.getAlias() != null) {
+            word(field.getAlias().getValue());
+            colon();
+        }
+        word(field.getName().getValue());
+        List<Argument> arguments = field.getArguments();
+        if (canonical) {
+            arguments = sorted(arguments, ARGUMENT_ORDER);
+        }
+        if (!arguments.isEmpty()) {
+            punctuator('(');
+            for (int i = 0; i < arguments.size(); i++) {
+                if (i > 0) {
+                    separator();
+                }
+                Argument argument = arguments.get(i);
+                printNameValue(argument.getName(), argument.getValue());
+            }
+            punctuator(')');
+        }
+        printDirectives(field.getDirectives());
+        if (field.getSelectionSet() != null) {
+            space();
+            printSelectionSet(field.getSelectionSet());
+        }
+    }
+
+    private void printDirectives(List<Directive> directives) throws IOException {
+        for (int i = 0; i < directives.size(); i++) {
+            space();
+            printDirective(directives.get(i));
+        }
+    }
+
+    private void printDirective(Directive directive) throws IOException {
+        punctuator('@');
+        word(directive.getName().getValue());
+        if (directive.getValue() != null) {
+            colon();
+            printValue(directive.getValue());
+        }
+    }
+
+    private void printNameValue(Name name, Value value) throws IOException {
+        word(name.getValue());
+        colon();
+        printValue(value);
+    }
+
+    private void printValue(Value value) throws IOException {
+        switch (value.getKind()) {
+        case VARIABLE:
+            printVariable((Variable) value);
+            break;
+        case INT_VALUE:
+            word(((IntValue) value).getValue());
+            break;
+        case FLOAT_VALUE:
+            word(((FloatValue) value).getValue());
+            break;
+        case STRING_VALUE:
+            printString(((StringValue) value).getValue());
+            break;
+        case BOOLEAN_VALUE:
+            word(((BooleanValue) value).getValue() ? "true" : "false");
+            break;
+        case ENUM_VALUE:
+            word(((EnumValue) value).getValue());
+            break;
+        case ARRAY_VALUE: {
+            List<Value> values = ((ArrayValue) value).getValues();
+            punctuator('[');
+            for (int i = 0; i < values.size(); i++) {
+                if (i > 0) {
+                    separator();
+                }
+                printValue(values.get(i));
+            }
+            punctuator(']');
+            break;
+        }
+        default: {
+            List<ObjectField> fields = ((ObjectValue) value).getFields();
+            if (canonical) {
+                fields = sorted(fields, OBJECT_FIELD_ORDER);
+            }
+            punctuator('{');
+            for (int i = 0; i < fields.size(); i++) {
+                if (i > 0) {
+                    separator();
+                }
+                ObjectField field = fields.get(i);
+                printNameValue(field.getName(), field.getValue());
+            }
+            punctuator('}');
+        }
+        }
+    }
+
+    private void printVariable(Variable variable) throws IOException {
+        punctuator('$');
+        word(variable.getName().getValue());
+    }
+
+    private void printType(Type type) throws IOException {
+        switch (type.getKind()) {
+        case NON_NULL_TYPE:
+            printType(((NonNullType) type).getType());
+            punctuator('!');
+            break;
+        case LIST_TYPE:
+            punctuator('[');
+            printType(((ListType) type).getType());
+            punctuator(']');
+            break;
+        default:
+            word(((BaseType) type).getName().getValue());
+        }
+    }
+
+    private void printString(String value) throws IOException {
+        Appendable out = this.out;
+        out.append('"');
+        int chunkStart = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\' && c != 0x2028 && c != 0x2029) {
+                continue;
+            }
+            out.append(value, chunkStart, i);
+            chunkStart = i + 1;
+            switch (c) {
+            case '"': out.append("\\\""); break;
+            case '\\': out.append("\\\\"); break;
+            case '\b': out.append("\\b"); break;
+            case '\f': out.append("\\f"); break;
+            case '\n': out.append("\\n"); break;
+            case '\r': out.append("\\r"); break;
+            case '\t': out.append("\\t"); break;
+            default:
+                out.append("\\u")
+                        .append(HEX_DIGITS[c >> 12])
+                        .append(HEX_DIGITS[c >> 8 & 0xf])
+                        .append(HEX_DIGITS[c >> 4 & 0xf])
+                        .append(HEX_DIGITS[c & 0xf]);
+            }
+        }
+        out.append(value, chunkStart, value.length());
+        out.append('"');
+        afterWord = false;
+    }
+
+    private void word(String text) throws IOException {
+        if (afterWord) {
+            out.append(' ');
+        }
+        out.append(text);
+        afterWord = true;
+    }
+
+    private void punctuator(char c) throws IOException {
+        out.append(c);
+        afterWord = false;
+    }
+
+    private void punctuator(String text) throws IOException {
+        out.append(text);
+        afterWord = false;
+    }
+
+    private void colon() throws IOException {
+        out.append(pretty ? ": " : ":");
+        afterWord = false;
+    }
+
+    /**
+     * Separates the items of a list of arguments, values, object fields or
+     * variable definitions.
+     */
+    private void separator() throws IOException {
+        if (pretty) {
+            out.append(", ");
+            afterWord = false;
+        }
+    }
+
+    private void space() throws IOException {
+        if (pretty) {
+            out.append(' ');
+            afterWord = false;
+        }
+    }
+
+    private void newline() throws IOException {
+        if (pretty) {
+            out.append('\n');
+            for (int i = 0; i < indent; i++) {
+                out.append("  ");
+            }
+            afterWord = false;
+        }
+    }
+
+    /**
+     * Returns the nodes in the given order, copying the list only if it is
+     * not sorted already. The sort is stable, so duplicates keep their
+     * relative order.
+     */
+    private static <T> List<T> sorted(List<T> nodes, Comparator<? super T> order) {
+        for (int i = 1; i < nodes.size(); i++) {
+            if (order.compare(nodes.get(i - 1), nodes.get(i)) > 0) {
+                List<T> copy = new ArrayList<>(nodes);
+                Collections.sort(copy, order);
+                return copy;
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * The reusable UTF-8 output of printUtf8().
+     */
+    private static final class ByteArrayOutput extends Utf8Encoder {
+        byte[] bytes = new byte[256];
+        int length;
+
+        @Override void putByte(int b) {
+            if (length == bytes.length) {
+                bytes = Arrays.copyOf(bytes, length * 2);
+            }
+            bytes[length++] = (byte) b;
+        }
+
+        @Override public Appendable append(CharSequence csq, int start, int end) {
+            if (csq == null) {
+                return super.append(csq, start, end);
+            }
+            int required = length + end - start;
+            if (required > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(required, bytes.length * 2));
+            }
+            // Copy ASCII directly, leaving the rest to the encoder.
+            byte[] bytes = this.bytes;
+            int length = this.length;
+            int i = start;
+            for (; i < end; i++) {
+                char c = csq.charAt(i);
+                if (c >= 0x80) {
+                    break;
+                }
+                bytes[length++] = (byte) c;
+            }
+            this.length = length;
+            return i < end ? super.append(csq, i, end) : this;
+        }
+    }
+}
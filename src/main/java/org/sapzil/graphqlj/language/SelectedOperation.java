@@ -0,0 +1,71 @@
+package org.sapzil.graphqlj.language;
+
+import org.sapzil.graphqlj.language.ast.Definition;
+import org.sapzil.graphqlj.language.ast.Document;
+import org.sapzil.graphqlj.language.ast.FragmentDefinition;
+import org.sapzil.graphqlj.language.ast.NodeKind;
+import org.sapzil.graphqlj.language.ast.OperationDefinition;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An operation chosen from a document by name, together with the fragments
+ * of the document.
+ */
+public final class SelectedOperation {
+    private final OperationDefinition operation;
+    private final Map<String, FragmentDefinition> fragments;
+
+    private SelectedOperation(OperationDefinition operation, Map<String, FragmentDefinition> fragments) {
+        this.operation = operation;
+        this.fragments = fragments;
+    }
+
+    /**
+     * Selects the named operation of the document, or its only operation
+     * if the name is null.
+     *
+     * @throws IllegalArgumentException if there is no such operation
+     */
+    public static SelectedOperation select(Document document, String operationName) {
+        OperationDefinition operation = null;
+        Map<String, FragmentDefinition> fragments = new HashMap<>();
+        for (Definition definition : document.getDefinitions()) {
+            if (definition.getKind() == NodeKind.FRAGMENT_DEFINITION) {
+                FragmentDefinition fragment = (FragmentDefinition) definition;
+                if (!fragments.containsKey(fragment.getName().getValue())) {
+                    fragments.put(fragment.getName().getValue(), fragment);
+                }
+                continue;
+            }
+            OperationDefinition candidate = (OperationDefinition) definition;
+            if (operationName == null) {
+                if (operation != null) {
+                    throw new IllegalArgumentException("Must provide operation name if query contains multiple operations.");
+                }
+                operation = candidate;
+            } else if (operation == null && candidate.getName() != null && operationName.equals(candidate.getName().getValue())) {
+                operation = candidate;
+            }
+        }
+        if (operation == null) {
+            throw new IllegalArgumentException(operationName == null
+                    ? "Must provide an operation."
+                    : "Unknown operation named \"" + operationName + "\".");
+        }
+        return new SelectedOperation(operation, fragments);
+    }
+
+    public OperationDefinition getOperation() {
+        return operation;
+    }
+
+    /**
+     * Returns the fragments by name; of fragments sharing a name, the first.
+     * The map is owned by the caller and may be modified.
+     */
+    public Map<String, FragmentDefinition> getFragments() {
+        return fragments;
+    }
+}
@@ -1,14 +1,36 @@
 package org.sapzil.graphqlj.language;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
 /**
  * A representation of source input to GraphQL. The name is optional,
  * but is mostly useful for clients who store GraphQL documents in
  * souce files; for example, if the GraphQL input is in a file Foo.graphql,
  * it might be useful for name to be "Foo.graphql".
+ *
+ * A Source is backed either by a String or by UTF-8 encoded bytes (see
+ * fromUtf8() and fromFile()). The lexer scans UTF-8 input in place and only decodes the
+ * values it materializes. For UTF-8 sources, all positions, including
+ * columns, are byte offsets.
  */
 public final class Source {
-    private final String body;
+    // Constants for scanning 8 bytes of UTF-8 input at a time.
+    private static final long ONES = 0x0101010101010101L;
+    private static final long LOW_BITS = 0x7f7f7f7f7f7f7f7fL;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    private final String body; // null if backed by bytes
+    private final ByteBuffer bytes; // null if backed by a String
     private final String name;
+    // Offsets at which each line starts; built on first use.
+    private volatile int[] lineStarts;
 
     public Source(String body) {
         this(body, "GraphQL");
@@ -16,14 +38,375 @@ public final class Source {
 
     public Source(String body, String name) {
         this.body = body;
+        this.bytes = null;
         this.name = name;
     }
 
+    private Source(ByteBuffer bytes, String name) {
+        this.body = null;
+        // Little-endian, so the first byte of a word is its lowest.
+        this.bytes = bytes.order(ByteOrder.LITTLE_ENDIAN);
+        this.name = name;
+    }
+
+    /**
+     * Creates a source backed by the given UTF-8 encoded bytes, which are
+     * not copied and must not be modified afterwards.
+     */
+    public static Source fromUtf8(byte[] bytes) {
+        return fromUtf8(ByteBuffer.wrap(bytes), "GraphQL");
+    }
+
+    public static Source fromUtf8(byte[] bytes, String name) {
+        return fromUtf8(ByteBuffer.wrap(bytes), name);
+    }
+
+    /**
+     * Creates a source backed by the remaining UTF-8 encoded bytes of the
+     * given buffer, which may be direct. The bytes are not copied and must
+     * not be modified afterwards; the buffer's position is not changed.
+     */
+    public static Source fromUtf8(ByteBuffer buffer, String name) {
+        return new Source(buffer.slice(), name);
+    }
+
+    /**
+     * Creates a source that memory-maps the given UTF-8 encoded file, named
+     * after its path.
+     *
+     * The file is scanned in place rather than read into the heap, which
+     * suits large documents such as persisted query manifests. The mapping
+     * stays valid for as long as the Source is reachable (including through
+     * nodes parsed from it), and the file must not be modified meanwhile.
+     * Files of 2 GiB or more cannot be mapped.
+     */
+    public static Source fromFile(Path file) throws IOException {
+        return fromFile(file, file.toString());
+    }
+
+    public static Source fromFile(Path file, String name) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File is too large to map: " + file);
+            }
+            return new Source(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), name);
+        }
+    }
+
+    /**
+     * Returns the text of this source. For UTF-8 sources this decodes the
+     * whole input on every call; DocumentCache and PersistedQueryRegistry
+     * work on the bytes instead.
+     */
     public String getBody() {
-        return body;
+        if (body != null) {
+            return body;
+        }
+        return substring(0, bytes.limit());
+    }
+
+    /**
+     * Returns the bytes of a UTF-8 source, from position 0 to the length,
+     * or null for a String source. The buffer must not be modified.
+     */
+    ByteBuffer utf8Bytes() {
+        return body == null ? bytes.duplicate() : null;
     }
 
     public String getName() {
         return name;
     }
+
+    /**
+     * Returns the length of the input in chars, or in bytes for UTF-8
+     * sources.
+     */
+    public int length() {
+        return body != null ? body.length() : bytes.limit();
+    }
+
+    /**
+     * Returns true if this source is backed by UTF-8 encoded bytes.
+     */
+    public boolean isUtf8() {
+        return body == null;
+    }
+
+    /**
+     * Returns the code unit at the given position: a char of the body, or
+     * a byte (0-255) of UTF-8 input.
+     */
+    char charAt(int position) {
+        if (body != null) {
+            return body.charAt(position);
+        }
+        return (char) (bytes.get(position) & 0xff);
+    }
+
+    /**
+     * Returns the decoded text between the given positions, which must not
+     * split a character.
+     */
+    public String substring(int start, int end) {
+        if (body != null) {
+            return body.substring(start, end);
+        }
+        if (bytes.hasArray()) {
+            return new String(bytes.array(), bytes.arrayOffset() + start, end - start, StandardCharsets.UTF_8);
+        }
+        byte[] copy = new byte[end - start];
+        ByteBuffer slice = bytes.duplicate();
+        slice.position(start);
+        slice.get(copy);
+        return new String(copy, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Appends the decoded text between the given positions, which must not
+     * split a character.
+     */
+    void append(StringBuilder sb, int start, int end) {
+        if (body != null) {
+            sb.append(body, start, end);
+            return;
+        }
+        sb.ensureCapacity(sb.length() + end - start);
+        for (int position = start; position < end; position++) {
+            char code = charAt(position);
+            if (code >= 0x80) {
+                sb.append(substring(position, end));
+                return;
+            }
+            sb.append(code);
+        }
+    }
+
+    /**
+     * Returns the first position at or after the given one that does not
+     * hold a space, or the length.
+     */
+    int skipSpaces(int position) {
+        int length = length();
+        if (body == null) {
+            ByteBuffer bytes = this.bytes;
+            for (; position + 8 <= length; position += 8) {
+                long word = bytes.getLong(position);
+                long mask = ~bytesEqual(word, ' ') & HIGH_BITS;
+                if (mask != 0) {
+                    return position + (Long.numberOfTrailingZeros(mask) >>> 3);
+                }
+            }
+        }
+        while (position < length && charAt(position) == ' ') {
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * Returns the first position at or after the given one that holds NUL,
+     * a line feed, a carriage return or a non-ASCII code unit, or the
+     * length. Comments extend at least up to there.
+     */
+    int scanComment(int position) {
+        int length = length();
+        if (body == null) {
+            ByteBuffer bytes = this.bytes;
+            for (; position + 8 <= length; position += 8) {
+                long word = bytes.getLong(position);
+                long mask = (word & HIGH_BITS) | zeroBytes(word) |
+                        bytesEqual(word, '\n') | bytesEqual(word, '\r');
+                if (mask != 0) {
+                    return position + (Long.numberOfTrailingZeros(mask) >>> 3);
+                }
+            }
+        }
+        for (; position < length; position++) {
+            char code = charAt(position);
+            if (code == 0 || code == '\n' || code == '\r' || code >= 0x80) {
+                return position;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Returns the first position at or after the given one that holds NUL,
+     * a line feed, a carriage return, a quote, a backslash or a non-ASCII
+     * code unit, or the length. String literals extend at least up to
+     * there.
+     */
+    int scanString(int position) {
+        int length = length();
+        if (body == null) {
+            ByteBuffer bytes = this.bytes;
+            for (; position + 8 <= length; position += 8) {
+                long word = bytes.getLong(position);
+                long mask = (word & HIGH_BITS) | zeroBytes(word) |
+                        bytesEqual(word, '\n') | bytesEqual(word, '\r') |
+                        bytesEqual(word, '"') | bytesEqual(word, '\\');
+                if (mask != 0) {
+                    return position + (Long.numberOfTrailingZeros(mask) >>> 3);
+                }
+            }
+        }
+        for (; position < length; position++) {
+            char code = charAt(position);
+            if (code == 0 || code == '\n' || code == '\r' || code == '"' || code == '\\' || code >= 0x80) {
+                return position;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Returns a word with the high bit set in exactly those bytes of the
+     * given word that are zero. Unlike the shorter (x - ONES) & ~x trick,
+     * no carry crosses bytes, so there are no false positives.
+     */
+    private static long zeroBytes(long word) {
+        return ~(((word & LOW_BITS) + LOW_BITS) | word | LOW_BITS);
+    }
+
+    /**
+     * Returns a word with the high bit set in exactly those bytes of the
+     * given word that equal the given ASCII character.
+     */
+    private static long bytesEqual(long word, char c) {
+        return zeroBytes(word ^ (ONES * c));
+    }
+
+    /**
+     * Returns true if the text at the given position consists of exactly
+     * the given ASCII string.
+     */
+    boolean regionMatches(int start, String ascii) {
+        if (body != null) {
+            return body.regionMatches(start, ascii, 0, ascii.length());
+        }
+        for (int i = 0; i < ascii.length(); i++) {
+            if (bytes.get(start + i) != ascii.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the length, in code units, of the character starting at the
+     * given position if it is one of the non-ASCII line terminators U+2028
+     * or U+2029, and 0 otherwise.
+     */
+    int unicodeLineTerminatorLength(int position) {
+        if (body != null) {
+            char code = body.charAt(position);
+            return code == 0x2028 || code == 0x2029 ? 1 : 0;
+        }
+        // E2 80 A8 or E2 80 A9
+        int limit = bytes.limit();
+        if (position + 2 < limit &&
+                bytes.get(position) == (byte) 0xe2 &&
+                bytes.get(position + 1) == (byte) 0x80) {
+            byte last = bytes.get(position + 2);
+            if (last == (byte) 0xa8 || last == (byte) 0xa9) {
+                return 3;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the length, in code units, of the character starting at the
+     * given position if it is non-ASCII whitespace (U+00A0, U+2028 or
+     * U+2029), and 0 otherwise.
+     */
+    int unicodeWhitespaceLength(int position) {
+        if (body != null) {
+            char code = body.charAt(position);
+            return code == 0xa0 || code == 0x2028 || code == 0x2029 ? 1 : 0;
+        }
+        // C2 A0
+        if (position + 1 < bytes.limit() &&
+                bytes.get(position) == (byte) 0xc2 &&
+                bytes.get(position + 1) == (byte) 0xa0) {
+            return 2;
+        }
+        return unicodeLineTerminatorLength(position);
+    }
+
+    /**
+     * Returns the whole character starting at the given position, for use
+     * in error messages.
+     */
+    String characterAt(int position) {
+        if (body != null) {
+            // Both halves of a surrogate pair, as for UTF-8 input.
+            return new String(Character.toChars(body.codePointAt(position)));
+        }
+        int lead = bytes.get(position) & 0xff;
+        int length = lead < 0x80 ? 1 : lead < 0xe0 ? 2 : lead < 0xf0 ? 3 : 4;
+        return substring(position, Math.min(position + length, bytes.limit()));
+    }
+
+    /**
+     * Returns the line and column of the given position.
+     *
+     * The offsets at which lines start are computed once per Source, on
+     * first use, so each lookup is a binary search.
+     */
+    public SourceLocation getLineColumn(int position) {
+        if (position == 0) {
+            // Avoids building the index for errors reported at the start,
+            // such as a document exceeding the size limit.
+            return new SourceLocation(1, 1);
+        }
+        int[] lineStarts = getLineStarts();
+        int line = Arrays.binarySearch(lineStarts, position);
+        if (line < 0) {
+            // Not a line start: the insertion point is the following line.
+            line = -line - 2;
+        }
+        return new SourceLocation(line + 1, position - lineStarts[line] + 1);
+    }
+
+    private int[] getLineStarts() {
+        int[] lineStarts = this.lineStarts;
+        if (lineStarts == null) {
+            // Racing threads compute identical arrays, so no lock is needed.
+            lineStarts = computeLineStarts();
+            this.lineStarts = lineStarts;
+        }
+        return lineStarts;
+    }
+
+    /**
+     * Line terminators are \r\n, \n, \r, U+2028 and U+2029.
+     */
+    private int[] computeLineStarts() {
+        int[] lineStarts = new int[16];
+        int count = 1;
+        int length = length();
+        for (int position = 0; position < length; position++) {
+            char code = charAt(position);
+            int terminatorLength;
+            if (code == 10) {
+                terminatorLength = 1;
+            } else if (code == 13) {
+                terminatorLength = position + 1 < length && charAt(position + 1) == 10 ? 2 : 1;
+            } else if (code >= 0x80) {
+                terminatorLength = unicodeLineTerminatorLength(position);
+            } else {
+                terminatorLength = 0;
+            }
+            if (terminatorLength > 0) {
+                position += terminatorLength - 1;
+                if (count == lineStarts.length) {
+                    lineStarts = Arrays.copyOf(lineStarts, count * 2);
+                }
+                lineStarts[count++] = position + 1;
+            }
+        }
+        return Arrays.copyOf(lineStarts, count);
+    }
 }
@@ -0,0 +1,44 @@
+package org.sapzil.graphqlj.language;
+
+/**
+ * A 1-based line and column in a Source.
+ */
+public final class SourceLocation {
+    private final int line;
+    private final int column;
+
+    public SourceLocation(int line, int column) {
+        this.line = line;
+        this.column = column;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SourceLocation)) {
+            return false;
+        }
+        SourceLocation that = (SourceLocation) o;
+        return line == that.line && column == that.column;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * line + column;
+    }
+
+    @Override
+    public String toString() {
+        return line + ":" + column;
+    }
+}
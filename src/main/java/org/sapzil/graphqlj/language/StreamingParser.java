@@ -0,0 +1,263 @@
+package org.sapzil.graphqlj.language;
+
+import org.sapzil.graphqlj.language.ast.Definition;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A push-style parser for documents that arrive in chunks.
+ *
+ * Each call to feed() returns the top-level definitions completed by that
+ * chunk, so the first operation of a large payload can be processed before
+ * the rest has arrived. Only the text of the definition currently being
+ * received is buffered; the maximum document size of the ParseOptions
+ * applies to each definition, and so bounds that buffer.
+ *
+ * The input is split between definitions by a scanner that tracks string
+ * literals, comments and bracket nesting; each definition is then parsed
+ * with Parser as a Source of its own. Node locations, and the positions of
+ * syntax errors, are therefore relative to the start of that definition
+ * (including any whitespace and comments preceding it).
+ *
+ * A StreamingParser is not thread-safe, and cannot be used further once
+ * it has thrown a syntax error.
+ */
+public final class StreamingParser {
+    private static final int NORMAL = 0;
+    private static final int STRING = 1;
+    private static final int STRING_ESCAPE = 2;
+    private static final int COMMENT = 3;
+
+    private final String name;
+    private final ParseOptions options;
+    private final StringBuilder pending = new StringBuilder();
+    private CharsetDecoder decoder;
+    private CharBuffer decoded;
+    private ByteBuffer carry;
+    private boolean finished;
+
+    // Scanner state, for the text of pending up to position.
+    private int position;
+    private int state = NORMAL;
+    private int depth;
+    // Whether the outermost open bracket is a selection set.
+    private boolean selectionSet;
+    // The last significant character outside of any brackets.
+    private char prev;
+    // Whether anything but whitespace and comments is pending.
+    private boolean content;
+
+    public StreamingParser(ParseOptions options) {
+        this("GraphQL", options);
+    }
+
+    /**
+     * The name is given to the Source of every parsed definition.
+     */
+    public StreamingParser(String name, ParseOptions options) {
+        this.name = name;
+        this.options = options;
+    }
+
+    /**
+     * Appends the given text and returns the definitions it completes.
+     */
+    public List<Definition> feed(CharSequence chunk) throws GraphQLLanguageException {
+        ensureOpen();
+        pending.append(chunk);
+        return drain();
+    }
+
+    /**
+     * Appends the remaining UTF-8 encoded bytes of the given buffer and
+     * returns the definitions they complete. A character may be split
+     * across chunks. Malformed input is replaced with U+FFFD.
+     */
+    public List<Definition> feed(ByteBuffer utf8) throws GraphQLLanguageException {
+        ensureOpen();
+        if (decoder == null) {
+            decoder = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            decoded = CharBuffer.allocate(1024);
+            carry = ByteBuffer.allocate(4);
+        }
+        // Complete a character split off the end of the previous chunk.
+        while (carry.position() > 0 && utf8.hasRemaining()) {
+            carry.put(utf8.get());
+            carry.flip();
+            decode(carry, false);
+            carry.compact();
+        }
+        decode(utf8, false);
+        // At most the first bytes of one character are left.
+        carry.put(utf8);
+        return drain();
+    }
+
+    /**
+     * Signals the end of input and returns the remaining definitions. Throws
+     * if the input ends in the middle of a definition.
+     */
+    public List<Definition> finish() throws GraphQLLanguageException {
+        ensureOpen();
+        finished = true;
+        if (decoder != null) {
+            carry.flip();
+            decode(carry, true);
+            decoder.flush(decoded);
+            flushDecoded();
+        }
+        List<Definition> definitions = drain();
+        if (!content) {
+            return definitions;
+        }
+        // Parsing the incomplete definition reports what is missing.
+        List<Definition> rest = parseSegment(pending.length());
+        if (definitions.isEmpty()) {
+            return rest;
+        }
+        definitions.addAll(rest);
+        return definitions;
+    }
+
+    private void ensureOpen() {
+        if (finished) {
+            throw new IllegalStateException("finish() has already been called");
+        }
+    }
+
+    private void decode(ByteBuffer in, boolean endOfInput) {
+        while (true) {
+            CoderResult result = decoder.decode(in, decoded, endOfInput);
+            flushDecoded();
+            if (!result.isOverflow()) {
+                return;
+            }
+        }
+    }
+
+    private void flushDecoded() {
+        pending.append(decoded.array(), 0, decoded.position());
+        decoded.clear();
+    }
+
+    /**
+     * Scans the pending text and parses every complete definition in it.
+     */
+    private List<Definition> drain() throws GraphQLLanguageException {
+        List<Definition> definitions = null;
+        int segmentStart = 0;
+        int length = pending.length();
+        for (; position < length; position++) {
+            if (scan(pending.charAt(position))) {
+                if (definitions == null) {
+                    definitions = new ArrayList<>();
+                }
+                definitions.addAll(parseSegment(segmentStart, position + 1));
+                segmentStart = position + 1;
+            }
+        }
+        if (segmentStart > 0) {
+            pending.delete(0, segmentStart);
+            position -= segmentStart;
+        }
+        if (pending.length() > options.maxDocumentSize()) {
+            // Fail without waiting for the definition to end.
+            Parser.checkDocumentSize(new Source(pending.toString(), name), options);
+        }
+        if (definitions == null) {
+            return Collections.emptyList();
+        }
+        return definitions;
+    }
+
+    private List<Definition> parseSegment(int end) throws GraphQLLanguageException {
+        List<Definition> definitions = parseSegment(0, end);
+        pending.setLength(0);
+        position = 0;
+        return definitions;
+    }
+
+    private List<Definition> parseSegment(int start, int end) throws GraphQLLanguageException {
+        Source source = new Source(pending.substring(start, end), name);
+        return Parser.parse(source, options).getDefinitions();
+    }
+
+    /**
+     * Advances the scanner over the given character. Returns true if it
+     * ends a top-level definition, or is an unbalanced closing bracket (in
+     * which case parsing the text so far reports the error).
+     */
+    private boolean scan(char code) {
+        switch (state) {
+        case STRING:
+            if (code == '"' || isLineTerminator(code)) {
+                // An unterminated string is reported by the parser.
+                state = NORMAL;
+            } else if (code == '\\') {
+                state = STRING_ESCAPE;
+            }
+            return false;
+        case STRING_ESCAPE:
+            state = STRING;
+            return false;
+        case COMMENT:
+            if (isLineTerminator(code)) {
+                state = NORMAL;
+            }
+            return false;
+        }
+
+        if (Lexer.isWhitespace(code)) {
+            return false;
+        }
+        switch (code) {
+        case '#':
+            state = COMMENT;
+            return false;
+        case '"':
+            state = STRING;
+            break;
+        case '{':
+            if (depth++ == 0) {
+                // Outside of brackets, a brace following a colon is an
+                // object value of a directive rather than a selection set.
+                selectionSet = prev != ':';
+            }
+            break;
+        case '(': case '[':
+            if (depth++ == 0) {
+                selectionSet = false;
+            }
+            break;
+        case '}': case ')': case ']':
+            if (--depth < 0 || (depth == 0 && code == '}' && selectionSet)) {
+                depth = 0;
+                prev = 0;
+                content = false;
+                return true;
+            }
+            break;
+        default:
+            break;
+        }
+        content = true;
+        if (depth == 0) {
+            prev = code;
+        }
+        return false;
+    }
+
+    private static boolean isLineTerminator(char code) {
+        return code == '\n' || code == '\r' || code == 0x2028 || code == 0x2029;
+    }
+}
@@ -0,0 +1,81 @@
+package org.sapzil.graphqlj.language;
+
+/**
+ * An Appendable that encodes the chars appended to it as UTF-8 and passes
+ * the bytes to putByte(). Unpaired surrogates are encoded as '?', like
+ * String.getBytes() does.
+ */
+abstract class Utf8Encoder implements Appendable {
+    // A high surrogate waiting for its low surrogate, or 0.
+    private char highSurrogate;
+
+    abstract void putByte(int b);
+
+    final void putChar(char c) {
+        if (highSurrogate != 0) {
+            char high = highSurrogate;
+            highSurrogate = 0;
+            if (Character.isLowSurrogate(c)) {
+                putCodePoint(Character.toCodePoint(high, c));
+                return;
+            }
+            putByte('?');
+        }
+        if (c < 0x80) {
+            putByte(c);
+        } else if (Character.isHighSurrogate(c)) {
+            highSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            putByte('?');
+        } else {
+            putCodePoint(c);
+        }
+    }
+
+    /**
+     * Encodes a high surrogate left at the end of the input, if any.
+     */
+    final void flushSurrogate() {
+        if (highSurrogate != 0) {
+            highSurrogate = 0;
+            putByte('?');
+        }
+    }
+
+    private void putCodePoint(int codePoint) {
+        if (codePoint < 0x800) {
+            putByte(0xc0 | codePoint >> 6);
+        } else {
+            if (codePoint < 0x10000) {
+                putByte(0xe0 | codePoint >> 12);
+            } else {
+                putByte(0xf0 | codePoint >> 18);
+                putByte(0x80 | (codePoint >> 12 & 0x3f));
+            }
+            putByte(0x80 | (codePoint >> 6 & 0x3f));
+        }
+        putByte(0x80 | (codePoint & 0x3f));
+    }
+
+    @Override public final Appendable append(CharSequence csq) {
+        if (csq == null) {
+            csq = "null";
+        }
+        return append(csq, 0, csq.length());
+    }
+
+    @Override public Appendable append(CharSequence csq, int start, int end) {
+        if (csq == null) {
+            csq = "null";
+        }
+        for (int i = start; i < end; i++) {
+            putChar(csq.charAt(i));
+        }
+        return this;
+    }
+
+    @Override public final Appendable append(char c) {
+        putChar(c);
+        return this;
+    }
+}
@@ -0,0 +1,22 @@
+package org.sapzil.graphqlj.language;
+
+/**
+ * Tells a Walker how to proceed after a Visitor callback.
+ */
+public enum VisitAction {
+    /**
+     * Go on with the walk.
+     */
+    CONTINUE,
+
+    /**
+     * Do not visit the children of the node just entered, nor leave it.
+     * Returned from leave(), it is the same as CONTINUE.
+     */
+    SKIP,
+
+    /**
+     * Stop the walk; no further callbacks are made.
+     */
+    BREAK
+}
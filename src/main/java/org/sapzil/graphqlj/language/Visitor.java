@@ -0,0 +1,26 @@
+package org.sapzil.graphqlj.language;
+
+import org.sapzil.graphqlj.language.ast.Node;
+
+/**
+ * Receives the nodes of a tree from a Walker, in document order.
+ *
+ * Implementations switch on Node.getKind() to handle the kinds they care
+ * about. While a callback runs, the walker can be asked for the parent and
+ * other ancestors of the node. Both methods do nothing by default.
+ */
+public abstract class Visitor {
+    /**
+     * Called before the children of the node are visited.
+     */
+    public VisitAction enter(Node node, Walker walker) {
+        return VisitAction.CONTINUE;
+    }
+
+    /**
+     * Called after the children of the node have been visited.
+     */
+    public VisitAction leave(Node node, Walker walker) {
+        return VisitAction.CONTINUE;
+    }
+}
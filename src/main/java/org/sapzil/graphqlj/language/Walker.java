@@ -0,0 +1,312 @@
+package org.sapzil.graphqlj.language;
+
+import org.sapzil.graphqlj.language.ast.Argument;
+import org.sapzil.graphqlj.language.ast.ArrayValue;
+import org.sapzil.graphqlj.language.ast.BaseType;
+import org.sapzil.graphqlj.language.ast.Directive;
+import org.sapzil.graphqlj.language.ast.Document;
+import org.sapzil.graphqlj.language.ast.Field;
+import org.sapzil.graphqlj.language.ast.FragmentDefinition;
+import org.sapzil.graphqlj.language.ast.FragmentSpread;
+import org.sapzil.graphqlj.language.ast.InlineFragment;
+import org.sapzil.graphqlj.language.ast.ListType;
+import org.sapzil.graphqlj.language.ast.Node;
+import org.sapzil.graphqlj.language.ast.NonNullType;
+import org.sapzil.graphqlj.language.ast.ObjectField;
+import org.sapzil.graphqlj.language.ast.ObjectValue;
+import org.sapzil.graphqlj.language.ast.OperationDefinition;
+import org.sapzil.graphqlj.language.ast.SelectionSet;
+import org.sapzil.graphqlj.language.ast.Variable;
+import org.sapzil.graphqlj.language.ast.VariableDefinition;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Walks a tree of nodes depth first, calling a Visitor on entering and
+ * leaving every node, names included.
+ *
+ * Children are visited in document order. A field, for example, visits
+ * its alias, name, arguments, directives and selection set; absent
+ * optional children are not visited.
+ *
+ * The walk keeps its path on an explicit stack rather than recursing, so
+ * deeply nested documents cannot overflow the thread's stack, and it
+ * allocates nothing once the stack has grown to the depth of the tree.
+ * Nodes are immutable, so any number of walkers may walk the same tree
+ * concurrently, but a Walker itself must only be used by one thread at a
+ * time; keep one per thread and reuse it.
+ */
+public final class Walker {
+    private Node[] nodes = new Node[32];
+    // The index of the next child slot to visit, and the number of slots,
+    // for each node on the stack.
+    private int[] nextChildren = new int[32];
+    private int[] childCounts = new int[32];
+    private int size;
+
+    /**
+     * Walks the tree with a new Walker.
+     *
+     * @return false if the visitor stopped the walk
+     */
+    public static boolean walk(Node root, Visitor visitor) {
+        return new Walker().traverse(root, visitor);
+    }
+
+    /**
+     * Walks the tree rooted at the given node.
+     *
+     * @return false if the visitor stopped the walk
+     */
+    public boolean traverse(Node root, Visitor visitor) {
+        if (size != 0) {
+            throw new IllegalStateException("The walker is already in use");
+        }
+        try {
+            push(root);
+            VisitAction action = visitor.enter(root, this);
+            if (action == VisitAction.BREAK) {
+                return false;
+            }
+            if (action == VisitAction.SKIP) {
+                return true;
+            }
+            while (size > 0) {
+                int top = size - 1;
+                Node node = nodes[top];
+                Node child = nextChild(node, top);
+                if (child != null) {
+                    push(child);
+                    action = visitor.enter(child, this);
+                    if (action == VisitAction.BREAK) {
+                        return false;
+                    }
+                    if (action == VisitAction.SKIP) {
+                        nodes[--size] = null;
+                    }
+                    continue;
+                }
+                action = visitor.leave(node, this);
+                nodes[--size] = null;
+                if (action == VisitAction.BREAK) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            while (size > 0) {
+                nodes[--size] = null;
+            }
+        }
+    }
+
+    /**
+     * Returns the depth of the current node: 0 for the root of the walk.
+     */
+    public int getDepth() {
+        return size - 1;
+    }
+
+    /**
+     * Returns the parent of the current node, or null for the root.
+     */
+    public Node getParent() {
+        return getAncestor(1);
+    }
+
+    /**
+     * Returns the ancestor of the current node the given number of levels
+     * up (0 is the current node itself), or null if there is none.
+     */
+    public Node getAncestor(int levels) {
+        int index = size - 1 - levels;
+        return levels >= 0 && index >= 0 ? nodes[index] : null;
+    }
+
+    private void push(Node node) {
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, size * 2);
+            nextChildren = Arrays.copyOf(nextChildren, size * 2);
+            childCounts = Arrays.copyOf(childCounts, size * 2);
+        }
+        nodes[size] = node;
+        nextChildren[size] = 0;
+        childCounts[size] = childCount(node);
+        size++;
+    }
+
+    private Node nextChild(Node node, int top) {
+        int count = childCounts[top];
+        while (nextChildren[top] < count) {
+            Node child = childAt(node, nextChildren[top]++);
+            if (child != null) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of child slots of the node, counting absent
+     * optional children.
+     */
+    private static int childCount(Node node) {
+        switch (node.getKind()) {
+        case DOCUMENT:
+            return ((Document) node).getDefinitions().size();
+        case OPERATION_DEFINITION: {
+            OperationDefinition operation = (OperationDefinition) node;
+            return 2 + operation.getVariableDefinitions().size() + operation.getDirectives().size();
+        }
+        case VARIABLE_DEFINITION:
+            return 3;
+        case VARIABLE:
+            return 1;
+        case SELECTION_SET:
+            return ((SelectionSet) node).getSelections().size();
+        case FIELD: {
+            Field field = (Field) node;
+            return 3 + field.getArguments().size() + field.getDirectives().size();
+        }
+        case ARGUMENT:
+            return 2;
+        case FRAGMENT_SPREAD:
+            return 1 + ((FragmentSpread) node).getDirectives().size();
+        case INLINE_FRAGMENT:
+            return 2 + ((InlineFragment) node).getDirectives().size();
+        case FRAGMENT_DEFINITION:
+            return 3 + ((FragmentDefinition) node).getDirectives().size();
+        case ARRAY_VALUE:
+            return ((ArrayValue) node).getValues().size();
+        case OBJECT_VALUE:
+            return ((ObjectValue) node).getFields().size();
+        case OBJECT_FIELD:
+            return 2;
+        case DIRECTIVE:
+            return 2;
+        case BASE_TYPE:
+        case LIST_TYPE:
+        case NON_NULL_TYPE:
+            return 1;
+        default:
+            // Names and scalar values.
+            return 0;
+        }
+    }
+
+    /**
+     * Returns the child in the given slot of the node, or null if it is an
+     * absent optional child.
+     */
+    private static Node childAt(Node node, int index) {
+        switch (node.getKind()) {
+        case DOCUMENT:
+            return ((Document) node).getDefinitions().get(index);
+        case OPERATION_DEFINITION: {
+            OperationDefinition operation = (OperationDefinition) node;
+            if (index == 0) {
+                return operation.getName();
+            }
+            index -= 1;
+            List<VariableDefinition> variableDefinitions = operation.getVariableDefinitions();
+            if (index < variableDefinitions.size()) {
+                return variableDefinitions.get(index);
+            }
+            index -= variableDefinitions.size();
+            List<Directive> directives = operation.getDirectives();
+            if (index < directives.size()) {
+                return directives.get(index);
+            }
+            return operation.getSelectionSet();
+        }
+        case VARIABLE_DEFINITION: {
+            VariableDefinition variableDefinition = (VariableDefinition) node;
+            switch (index) {
+            case 0: return variableDefinition.getVariable();
+            case 1: return variableDefinition.getType();
+            default: return variableDefinition.getDefaultValue();
+            }
+        }
+        case VARIABLE:
+            return ((Variable) node).getName();
+        case SELECTION_SET:
+            return ((SelectionSet) node).getSelections().get(index);
+        case FIELD: {
+            Field field = (Field) node;
+            if (index == 0) {
+                return field.getAlias();
+            }
+            if (index == 1) {
+                return field.getName();
+            }
+            index -= 2;
+            List<Argument> arguments = field.getArguments();
+            if (index < arguments.size()) {
+                return arguments.get(index);
+            }
+            index -= arguments.size();
+            List<Directive> directives = field.getDirectives();
+            if (index < directives.size()) {
+                return directives.get(index);
+            }
+            return field.getSelectionSet();
+        }
+        case ARGUMENT: {
+            Argument argument = (Argument) node;
+            return index == 0 ? argument.getName() : argument.getValue();
+        }
+        case FRAGMENT_SPREAD: {
+            FragmentSpread spread = (FragmentSpread) node;
+            return index == 0 ? spread.getName() : spread.getDirectives().get(index - 1);
+        }
+        case INLINE_FRAGMENT: {
+            InlineFragment fragment = (InlineFragment) node;
+            if (index == 0) {
+                return fragment.getTypeCondition();
+            }
+            index -= 1;
+            List<Directive> directives = fragment.getDirectives();
+            if (index < directives.size()) {
+                return directives.get(index);
+            }
+            return fragment.getSelectionSet();
+        }
+        case FRAGMENT_DEFINITION: {
+            FragmentDefinition fragment = (FragmentDefinition) node;
+            if (index == 0) {
+                return fragment.getName();
+            }
+            if (index == 1) {
+                return fragment.getTypeCondition();
+            }
+            index -= 2;
+            List<Directive> directives = fragment.getDirectives();
+            if (index < directives.size()) {
+                return directives.get(index);
+            }
+            return fragment.getSelectionSet();
+        }
+        case ARRAY_VALUE:
+            return ((ArrayValue) node).getValues().get(index);
+        case OBJECT_VALUE:
+            return ((ObjectValue) node).getFields().get(index);
+        case OBJECT_FIELD: {
+            ObjectField field = (ObjectField) node;
+            return index == 0 ? field.getName() : field.getValue();
+        }
+        case DIRECTIVE: {
+            Directive directive = (Directive) node;
+            return index == 0 ? directive.getName() : directive.getValue();
+        }
+        case BASE_TYPE:
+            return ((BaseType) node).getName();
+        case LIST_TYPE:
+            return ((ListType) node).getType();
+        case NON_NULL_TYPE:
+            return ((NonNullType) node).getType();
+        default:
+            throw new IllegalStateException();
+        }
+    }
+}
@@ -1,9 +1,26 @@
 package org.sapzil.graphqlj.language.ast;
 
-import org.sapzil.graphqlj.language.Location;
+import org.sapzil.graphqlj.language.Source;
 
 public class Argument extends Node {
-    public Argument(Location loc, Name name, Value value) {
-        super(loc);
+    private final Name name;
+    private final Value value;
+
+    public Argument(Source source, long range, Name name, Value value) {
+        super(source, range);
+        this.name = name;
+        this.value = value;
+    }
+
+    public Name getName() {
+        return name;
+    }
+
+    public Value getValue() {
+        return value;
+    }
+
+    @Override public NodeKind getKind() {
+        return NodeKind.ARGUMENT;
     }
 }
@@ -1,11 +1,22 @@
 package org.sapzil.graphqlj.language.ast;
 
-import org.sapzil.graphqlj.language.Location;
+import org.sapzil.graphqlj.language.Source;
 
 import java.util.List;
 
 public class ArrayValue extends Value {
-    public ArrayValue(Location loc, List<Value> items) {
-        super(loc);
+    private final List<Value> values;
+
+    public ArrayValue(Source source, long range, List<Value> values) {
+        super(source, range);
+        this.values = values;
+    }
+
+    public List<Value> getValues() {
+        return values;
+    }
+
+    @Override public NodeKind getKind() {
+        return NodeKind.ARRAY_VALUE;
     }
 }
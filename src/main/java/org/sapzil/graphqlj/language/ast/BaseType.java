@@ -1,9 +1,20 @@
 package org.sapzil.graphqlj.language.ast;
 
-import org.sapzil.graphqlj.language.Location;
+import org.sapzil.graphqlj.language.Source;
 
 public class BaseType extends Type {
-    public BaseType(Location loc, Name name) {
-        super(loc);
+    private final Name name;
+
+    public BaseType(Source source, long range, Name name) {
+        super(source, range);
+        this.name = name;
+    }
+
+    public Name getName() {
+        return name;
+    }
+
+    @Override public NodeKind getKind() {
+        return NodeKind.BASE_TYPE;
     }
 }
@@ -1,9 +1,20 @@
 package org.sapzil.graphqlj.language.ast;
 
-import org.sapzil.graphqlj.language.Location;
+import org.sapzil.graphqlj.language.Source;
 
 public class BooleanValue extends Value {
-    public BooleanValue(Location loc, boolean value) {
-        super(loc);
+    private final boolean value;
+
+    public BooleanValue(Source source, long range, boolean value) {
+        super(source, range);
+        this.value = value;
+    }
+
+    public boolean getValue() {
+        return value;
+    }
+
+    @Override public NodeKind getKind() {
+        return NodeKind.BOOLEAN_VALUE;
     }
 }
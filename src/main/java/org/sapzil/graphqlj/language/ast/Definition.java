@@ -0,0 +1,9 @@
+package org.sapzil.graphqlj.language.ast;
+
+import org.sapzil.graphqlj.language.Source;
+
+public abstract class Definition extends Node {
+    public Definition(Source source, long range) {
+        super(source, range);
+    }
+}
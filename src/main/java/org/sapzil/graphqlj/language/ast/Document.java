@@ -1,10 +1,22 @@
 package org.sapzil.graphqlj.language.ast;
 
-import org.sapzil.graphqlj.language.Location;
+import org.sapzil.graphqlj.language.Source;
 
 import java.util.List;
 
-public class Document {
-    public Document(List definitions, Location loc) {
+public class Document extends Node {
+    private final List<Definition> definitions;
+
+    public Document(Source source, long range, List<Definition> definitions) {
+        super(source, range);
+        this.definitions = definitions;
+    }
+
+    public List<Definition> getDefinitions() {
+        return definitions;
+    }
+
+    @Override public NodeKind getKind() {
+        return NodeKind.DOCUMENT;
     }
 }
@@ -1,9 +1,20 @@
 package org.sapzil.graphqlj.language.ast;
 
-import org.sapzil.graphqlj.language.Location;
+import org.sapzil.graphqlj.language.Source;
 
 public class EnumValue extends Value {
-    public EnumValue(Location loc, String value) {
-        super(loc);
+    private final String value;
+
+    public EnumValue(Source source, long range, String value) {
+        super(source, range);
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    @Override public NodeKind getKind() {
+        return NodeKind.ENUM_VALUE;
     }
 }
@@ -1,11 +1,46 @@
 package org.sapzil.graphqlj.language.ast;
 
-import org.sapzil.graphqlj.language.Location;
+import org.sapzil.graphqlj.language.Source;
 
 import java.util.List;
 
 public class Field extends Selection {
-    public Field(Location loc, Name alias, Name name, List<Argument> arguments, List<Directive> directives, SelectionSet selectionSet) {
-        super(loc);
+    private final Name alias;
+    private final Name name;
+    private final List<Argument> arguments;
+    private final List<Directive> directives;
+    private final SelectionSet selectionSet;
+
+    public Field(Source source, long range, Name alias, Name name, List<Argument> arguments, List<Directive> directives, SelectionSet selectionSet) {
+        super(source, range);
+        this.alias = alias;
+        this.name = name;
+        this.arguments = arguments;
+        this.directives = directives;
+        this.selectionSet = selectionSet;
+    }
+
+    public Name getAlias() {
+        return alias;
+    }
+
+    public Name getName() {
+        return name;
+    }
+
+    public List<Argument> getArguments() {
+        return arguments;
+    }
+
+    public List<Directive> getDirectives() {
+        return directives;
+    }
+
+    public SelectionSet getSelectionSet() {
+        return selectionSet;
+    }
+
+    @Override public NodeKind getKind() {
+        return NodeKind.FIELD;
     }
 }
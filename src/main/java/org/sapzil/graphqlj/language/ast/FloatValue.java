@@ -1,9 +1,55 @@
 package org.sapzil.graphqlj.language.ast;
 
-import org.sapzil.graphqlj.language.Location;
+import org.sapzil.graphqlj.language.Source;
 
+import java.math.BigDecimal;
+
+/**
+ * A float literal. A value created from a source range is decoded when it
+ * is first asked for; the text and the parsed number are each cached.
+ */
 public class FloatValue extends Value {
-    public FloatValue(Location loc, String value) {
-        super(loc);
+    // Caches are written without synchronization; racing threads compute
+    // equal immutable values.
+    private String value;
+    private BigDecimal decimal;
+
+    public FloatValue(Source source, long range, String value) {
+        super(source, range);
+        this.value = value;
+    }
+
+    /**
+     * Creates a value whose text is the given range of the source, which
+     * must hold a float token.
+     */
+    public FloatValue(Source source, long range) {
+        super(source, range);
+    }
+
+    public String getValue() {
+        String value = this.value;
+        if (value == null) {
+            value = getSource().substring(getStart(), getEnd());
+            this.value = value;
+        }
+        return value;
+    }
+
+    public double doubleValue() {
+        return bigDecimalValue().doubleValue();
+    }
+
+    public BigDecimal bigDecimalValue() {
+        BigDecimal decimal = this.decimal;
+        if (decimal == null) {
+            decimal = new BigDecimal(getValue());
+            this.decimal = decimal;
+        }
+        return decimal;
+    }
+
+    @Override public NodeKind getKind() {
+        return NodeKind.FLOAT_VALUE;
     }
 }
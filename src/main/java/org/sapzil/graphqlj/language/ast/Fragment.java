@@ -1,9 +1,9 @@
 package org.sapzil.graphqlj.language.ast;
 
-import org.sapzil.graphqlj.language.Location;
+import org.sapzil.graphqlj.language.Source;
 
 public abstract class Fragment extends Selection {
-    public Fragment(Location loc) {
-        super(loc);
+    public Fragment(Source source, long range) {
+        super(source, range);
     }
 }
@@ -1,11 +1,40 @@
 package org.sapzil.graphqlj.language.ast;
 
-import org.sapzil.graphqlj.language.Location;
+import org.sapzil.graphqlj.language.Source;
 
 import java.util.List;
 
-public class FragmentDefinition extends Node {
-    public FragmentDefinition(Location loc, Name name, Name typeCondition, List<Directive> directives, SelectionSet selectionSet) {
-        super(loc);
+public class FragmentDefinition extends Definition {
+    private final Name name;
+    private final Name typeCondition;
+    private final List<Directive> directives;
+    private final SelectionSet selectionSet;
+
+    public FragmentDefinition(Source source, long range, Name name, Name typeCondition, List<Directive> directives, SelectionSet selectionSet) {
+        super(source, range);
+        this.name = name;
+        this.typeCondition = typeCondition;
+        this.directives = directives;
+        this.selectionSet = selectionSet;
+    }
+
+    public Name getName() {
+        return name;
+    }
+
+    public Name getTypeCondition() {
+        return typeCondition;
+    }
+
+    public List<Directive> getDirectives() {
+        return directives;
+    }
+
+    public SelectionSet getSelectionSet() {
+        return selectionSet;
+    }
+
+    @Override public NodeKind getKind() {
+        return NodeKind.FRAGMENT_DEFINITION;
     }
 }
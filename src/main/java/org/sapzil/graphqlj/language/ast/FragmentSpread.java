@@ -1,11 +1,28 @@
 package org.sapzil.graphqlj.language.ast;
 
-import org.sapzil.graphqlj.language.Location;
+import org.sapzil.graphqlj.language.Source;
 
 import java.util.List;
 
 public class FragmentSpread extends Fragment {
-    public FragmentSpread(Location loc, Name name, List<Directive> directives) {
-        super(loc);
+    private final Name name;
+    private final List<Directive> directives;
+
+    public FragmentSpread(Source source, long range, Name name, List<Directive> directives) {
+        super(source, range);
+        this.name = name;
+        this.directives = directives;
+    }
+
+    public Name getName() {
+        return name;
+    }
+
+    public List<Directive> getDirectives() {
+        return directives;
+    }
+
+    @Override public NodeKind getKind() {
+        return NodeKind.FRAGMENT_SPREAD;
     }
 }
@@ -1,11 +1,34 @@
 package org.sapzil.graphqlj.language.ast;
 
-import org.sapzil.graphqlj.language.Location;
+import org.sapzil.graphqlj.language.Source;
 
 import java.util.List;
 
 public class InlineFragment extends Fragment {
-    public InlineFragment(Location loc, Name typeCondition, List<Directive> directives, SelectionSet selectionSet) {
-        super(loc);
+    private final Name typeCondition;
+    private final List<Directive> directives;
+    private final SelectionSet selectionSet;
+
+    public InlineFragment(Source source, long range, Name typeCondition, List<Directive> directives, SelectionSet selectionSet) {
+        super(source, range);
+        this.typeCondition = typeCondition;
+        this.directives = directives;
+        this.selectionSet = selectionSet;
+    }
+
+    public Name getTypeCondition() {
+        return typeCondition;
+    }
+
+    public List<Directive> getDirectives() {
+        return directives;
+    }
+
+    public SelectionSet getSelectionSet() {
+        return selectionSet;
+    }
+
+    @Override public NodeKind getKind() {
+        return NodeKind.INLINE_FRAGMENT;
     }
 }
@@ -1,9 +1,78 @@
 package org.sapzil.graphqlj.language.ast;
 
-import org.sapzil.graphqlj.language.Location;
+import org.sapzil.graphqlj.language.Source;
 
+import java.math.BigInteger;
+
+/**
+ * An int literal. A value created from a source range is decoded when it is
+ * first asked for; the text and the parsed number are each cached.
+ */
 public class IntValue extends Value {
-    public IntValue(Location loc, String value) {
-        super(loc);
+    // Caches are written without synchronization; racing threads compute
+    // equal immutable values.
+    private String value;
+    private Number number; // Long, or BigInteger if out of range
+
+    public IntValue(Source source, long range, String value) {
+        super(source, range);
+        this.value = value;
+    }
+
+    /**
+     * Creates a value whose text is the given range of the source, which
+     * must hold an int token.
+     */
+    public IntValue(Source source, long range) {
+        super(source, range);
+    }
+
+    public String getValue() {
+        String value = this.value;
+        if (value == null) {
+            value = getSource().substring(getStart(), getEnd());
+            this.value = value;
+        }
+        return value;
+    }
+
+    /**
+     * Returns the value as a long. Throws ArithmeticException if it is out of
+     * range.
+     */
+    public long longValue() {
+        Number number = getNumber();
+        if (number instanceof BigInteger) {
+            throw new ArithmeticException("Int value out of long range: " + getValue());
+        }
+        return number.longValue();
+    }
+
+    public BigInteger bigIntegerValue() {
+        Number number = getNumber();
+        if (number instanceof BigInteger) {
+            return (BigInteger) number;
+        }
+        return BigInteger.valueOf(number.longValue());
+    }
+
+    private Number getNumber() {
+        Number number = this.number;
+        if (number == null) {
+            String value = getValue();
+            int digits = value.length() - (value.charAt(0) == '-' ? 1 : 0);
+            if (digits <= 18) {
+                number = Long.parseLong(value);
+            } else {
+                BigInteger parsed = new BigInteger(value);
+                number = parsed.bitLength() < 64 ? (Number) parsed.longValue() : parsed;
+            }
+            this.number = number;
+        }
+        return number;
+    }
+
+    @Override public NodeKind getKind() {
+        return NodeKind.INT_VALUE;
     }
 }
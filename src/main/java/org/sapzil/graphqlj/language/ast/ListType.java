@@ -1,9 +1,20 @@
 package org.sapzil.graphqlj.language.ast;
 
-import org.sapzil.graphqlj.language.Location;
+import org.sapzil.graphqlj.language.Source;
 
 public class ListType extends Type {
-    public ListType(Location loc, Type type) {
-        super(loc);
+    private final Type type;
+
+    public ListType(Source source, long range, Type type) {
+        super(source, range);
+        this.type = type;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    @Override public NodeKind getKind() {
+        return NodeKind.LIST_TYPE;
     }
 }
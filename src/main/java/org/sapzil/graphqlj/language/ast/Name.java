@@ -1,16 +1,20 @@
 package org.sapzil.graphqlj.language.ast;
 
-import org.sapzil.graphqlj.language.Location;
+import org.sapzil.graphqlj.language.Source;
 
 public class Name extends Node {
     private final String value;
 
-    public Name(Location loc, String value) {
-        super(loc);
+    public Name(Source source, long range, String value) {
+        super(source, range);
         this.value = value;
     }
 
     public String getValue() {
         return value;
     }
+
+    @Override public NodeKind getKind() {
+        return NodeKind.NAME;
+    }
 }
@@ -1,12 +1,64 @@
 package org.sapzil.graphqlj.language.ast;
 
 import org.sapzil.graphqlj.language.Location;
+import org.sapzil.graphqlj.language.Source;
 
 /**
  * Created by ditto on 2015. 7. 3..
+ *
+ * Nodes are immutable. Lists passed to node constructors are stored as
+ * given rather than copied, so they must not be modified afterwards; the
+ * parser only passes unmodifiable lists, and shares
+ * Collections.emptyList() for empty ones. Optional children are null.
+ *
+ * A node keeps its location as a packed range (see Location.pack()) and
+ * the Source it was parsed from; the Location object is only created when
+ * getLoc() is called.
  */
 public abstract class Node {
-    public Node(Location loc) {
+    private final Source source; // nullable
+    private final long range;
 
+    public Node(Source source, long range) {
+        this.source = source;
+        this.range = range;
+    }
+
+    /**
+     * Returns the kind of this node, for dispatching with a switch.
+     */
+    public abstract NodeKind getKind();
+
+    /**
+     * Returns the location of this node, or null if it was parsed without
+     * locations. Each call returns a new Location.
+     */
+    public Location getLoc() {
+        if (range == Location.NONE) {
+            return null;
+        }
+        return new Location(Location.unpackStart(range), Location.unpackEnd(range), source);
+    }
+
+    /**
+     * Returns the start offset of this node, or -1 if it has no location.
+     */
+    public int getStart() {
+        return range == Location.NONE ? -1 : Location.unpackStart(range);
+    }
+
+    /**
+     * Returns the end offset of this node, or -1 if it has no location.
+     */
+    public int getEnd() {
+        return range == Location.NONE ? -1 : Location.unpackEnd(range);
+    }
+
+    /**
+     * Returns the source this node was parsed from, or null if it was
+     * parsed without locations or sources.
+     */
+    public Source getSource() {
+        return source;
     }
 }
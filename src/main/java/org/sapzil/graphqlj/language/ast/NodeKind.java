@@ -1,5 +1,38 @@
 package org.sapzil.graphqlj.language.ast;
 
 public enum NodeKind {
+    // Name
+    NAME,
+
+    // Document
     DOCUMENT,
+    OPERATION_DEFINITION,
+    VARIABLE_DEFINITION,
+    VARIABLE,
+    SELECTION_SET,
+    FIELD,
+    ARGUMENT,
+
+    // Fragments
+    FRAGMENT_SPREAD,
+    INLINE_FRAGMENT,
+    FRAGMENT_DEFINITION,
+
+    // Values
+    INT_VALUE,
+    FLOAT_VALUE,
+    STRING_VALUE,
+    BOOLEAN_VALUE,
+    ENUM_VALUE,
+    ARRAY_VALUE,
+    OBJECT_VALUE,
+    OBJECT_FIELD,
+
+    // Directives
+    DIRECTIVE,
+
+    // Types
+    BASE_TYPE,
+    LIST_TYPE,
+    NON_NULL_TYPE,
 }
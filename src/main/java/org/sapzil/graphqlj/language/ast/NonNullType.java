@@ -1,9 +1,20 @@
 package org.sapzil.graphqlj.language.ast;
 
-import org.sapzil.graphqlj.language.Location;
+import org.sapzil.graphqlj.language.Source;
 
 public class NonNullType extends Type {
-    public NonNullType(Location loc, Type type) {
-        super(loc);
+    private final Type type;
+
+    public NonNullType(Source source, long range, Type type) {
+        super(source, range);
+        this.type = type;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    @Override public NodeKind getKind() {
+        return NodeKind.NON_NULL_TYPE;
     }
 }
@@ -1,11 +1,22 @@
 package org.sapzil.graphqlj.language.ast;
 
-import org.sapzil.graphqlj.language.Location;
+import org.sapzil.graphqlj.language.Source;
 
 import java.util.List;
 
 public class ObjectValue extends Value {
-    public ObjectValue(Location loc, List<ObjectField> fields) {
-        super(loc);
+    private final List<ObjectField> fields;
+
+    public ObjectValue(Source source, long range, List<ObjectField> fields) {
+        super(source, range);
+        this.fields = fields;
+    }
+
+    public List<ObjectField> getFields() {
+        return fields;
+    }
+
+    @Override public NodeKind getKind() {
+        return NodeKind.OBJECT_VALUE;
     }
 }
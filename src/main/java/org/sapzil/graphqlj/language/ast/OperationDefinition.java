@@ -1,11 +1,46 @@
 package org.sapzil.graphqlj.language.ast;
 
-import org.sapzil.graphqlj.language.Location;
+import org.sapzil.graphqlj.language.Source;
 
 import java.util.List;
 
-public class OperationDefinition extends Node {
-    public OperationDefinition(Location loc, String operation, Name name, List<VariableDefinition> variableDefinitions, List<Directive> directives, SelectionSet selectionSet) {
-        super(loc);
+public class OperationDefinition extends Definition {
+    private final String operation;
+    private final Name name;
+    private final List<VariableDefinition> variableDefinitions;
+    private final List<Directive> directives;
+    private final SelectionSet selectionSet;
+
+    public OperationDefinition(Source source, long range, String operation, Name name, List<VariableDefinition> variableDefinitions, List<Directive> directives, SelectionSet selectionSet) {
+        super(source, range);
+        this.operation = operation;
+        this.name = name;
+        this.variableDefinitions = variableDefinitions;
+        this.directives = directives;
+        this.selectionSet = selectionSet;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public Name getName() {
+        return name;
+    }
+
+    public List<VariableDefinition> getVariableDefinitions() {
+        return variableDefinitions;
+    }
+
+    public List<Directive> getDirectives() {
+        return directives;
+    }
+
+    public SelectionSet getSelectionSet() {
+        return selectionSet;
+    }
+
+    @Override public NodeKind getKind() {
+        return NodeKind.OPERATION_DEFINITION;
     }
 }
@@ -1,9 +1,9 @@
 package org.sapzil.graphqlj.language.ast;
 
-import org.sapzil.graphqlj.language.Location;
+import org.sapzil.graphqlj.language.Source;
 
 public abstract class Selection extends Node {
-    public Selection(Location loc) {
-        super(loc);
+    public Selection(Source source, long range) {
+        super(source, range);
     }
 }
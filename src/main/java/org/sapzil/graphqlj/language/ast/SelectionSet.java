@@ -1,11 +1,22 @@
 package org.sapzil.graphqlj.language.ast;
 
-import org.sapzil.graphqlj.language.Location;
+import org.sapzil.graphqlj.language.Source;
 
 import java.util.List;
 
 public class SelectionSet extends Node {
-    public SelectionSet(Location loc, List<Selection> selections) {
-        super(loc);
+    private final List<Selection> selections;
+
+    public SelectionSet(Source source, long range, List<Selection> selections) {
+        super(source, range);
+        this.selections = selections;
+    }
+
+    public List<Selection> getSelections() {
+        return selections;
+    }
+
+    @Override public NodeKind getKind() {
+        return NodeKind.SELECTION_SET;
     }
 }
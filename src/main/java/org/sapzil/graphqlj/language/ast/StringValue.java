@@ -1,9 +1,39 @@
 package org.sapzil.graphqlj.language.ast;
 
-import org.sapzil.graphqlj.language.Location;
+import org.sapzil.graphqlj.language.Lexer;
+import org.sapzil.graphqlj.language.Source;
 
+/**
+ * A string literal. A value created from a source range is unescaped when
+ * it is first asked for, and cached.
+ */
 public class StringValue extends Value {
-    public StringValue(Location loc, String value) {
-        super(loc);
+    // Written without synchronization; racing threads compute equal values.
+    private String value;
+
+    public StringValue(Source source, long range, String value) {
+        super(source, range);
+        this.value = value;
+    }
+
+    /**
+     * Creates a value decoded from the given range of the source, which
+     * must hold a string token, quotes included.
+     */
+    public StringValue(Source source, long range) {
+        super(source, range);
+    }
+
+    public String getValue() {
+        String value = this.value;
+        if (value == null) {
+            value = Lexer.stringValue(getSource(), getStart(), getEnd());
+            this.value = value;
+        }
+        return value;
+    }
+
+    @Override public NodeKind getKind() {
+        return NodeKind.STRING_VALUE;
     }
 }
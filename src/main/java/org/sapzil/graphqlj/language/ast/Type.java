@@ -1,9 +1,9 @@
 package org.sapzil.graphqlj.language.ast;
 
-import org.sapzil.graphqlj.language.Location;
+import org.sapzil.graphqlj.language.Source;
 
 public abstract class Type extends Node {
-    public Type(Location loc) {
-        super(loc);
+    public Type(Source source, long range) {
+        super(source, range);
     }
 }
@@ -1,9 +1,9 @@
 package org.sapzil.graphqlj.language.ast;
 
-import org.sapzil.graphqlj.language.Location;
+import org.sapzil.graphqlj.language.Source;
 
 public abstract class Value extends Node {
-    public Value(Location loc) {
-        super(loc);
+    public Value(Source source, long range) {
+        super(source, range);
     }
 }
@@ -1,9 +1,32 @@
 package org.sapzil.graphqlj.language.ast;
 
-import org.sapzil.graphqlj.language.Location;
+import org.sapzil.graphqlj.language.Source;
 
 public class VariableDefinition extends Node {
-    public VariableDefinition(Location loc, Variable variable, Type type, Value defaultValue) {
-        super(loc);
+    private final Variable variable;
+    private final Type type;
+    private final Value defaultValue;
+
+    public VariableDefinition(Source source, long range, Variable variable, Type type, Value defaultValue) {
+        super(source, range);
+        this.variable = variable;
+        this.type = type;
+        this.defaultValue = defaultValue;
+    }
+
+    public Variable getVariable() {
+        return variable;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Value getDefaultValue() {
+        return defaultValue;
+    }
+
+    @Override public NodeKind getKind() {
+        return NodeKind.VARIABLE_DEFINITION;
     }
 }
@@ -0,0 +1,62 @@
+package org.sapzil.graphqlj.validation;
+
+/**
+ * The size of an operation as measured by ComplexityAnalyzer.
+ *
+ * If a limit was exceeded, the analysis stopped there: getError()
+ * describes the limit, and the measurements only cover what had been
+ * analyzed until then.
+ */
+public final class Complexity {
+    private final int depth;
+    private final int fieldCount;
+    private final long cost;
+    private final ValidationError error;
+
+    Complexity(int depth, int fieldCount, long cost, ValidationError error) {
+        this.depth = depth;
+        this.fieldCount = fieldCount;
+        this.cost = cost;
+        this.error = error;
+    }
+
+    /**
+     * Returns the deepest nesting of fields, counting fragments as if they
+     * were inlined: 1 for an operation that only selects scalars.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Returns the number of fields selected, counting the fields of a
+     * fragment once for every spread of it.
+     */
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Returns the estimated cost: the sum of the cost of every field, where
+     * the fields below a paginated field count once per item requested.
+     */
+    public long getCost() {
+        return cost;
+    }
+
+    /**
+     * Returns the limit that was exceeded, or null.
+     */
+    public ValidationError getError() {
+        return error;
+    }
+
+    public boolean isWithinLimits() {
+        return error == null;
+    }
+
+    @Override public String toString() {
+        return "Complexity{depth=" + depth + ", fieldCount=" + fieldCount + ", cost=" + cost +
+                (error != null ? ", error=" + error : "") + "}";
+    }
+}
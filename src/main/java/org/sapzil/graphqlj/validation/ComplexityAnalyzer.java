@@ -0,0 +1,489 @@
+package org.sapzil.graphqlj.validation;
+
+import org.sapzil.graphqlj.language.SelectedOperation;
+import org.sapzil.graphqlj.language.VisitAction;
+import org.sapzil.graphqlj.language.Visitor;
+import org.sapzil.graphqlj.language.Walker;
+import org.sapzil.graphqlj.language.ast.Argument;
+import org.sapzil.graphqlj.language.ast.BooleanValue;
+import org.sapzil.graphqlj.language.ast.Directive;
+import org.sapzil.graphqlj.language.ast.Document;
+import org.sapzil.graphqlj.language.ast.Field;
+import org.sapzil.graphqlj.language.ast.FragmentDefinition;
+import org.sapzil.graphqlj.language.ast.FragmentSpread;
+import org.sapzil.graphqlj.language.ast.InlineFragment;
+import org.sapzil.graphqlj.language.ast.IntValue;
+import org.sapzil.graphqlj.language.ast.Node;
+import org.sapzil.graphqlj.language.ast.NodeKind;
+import org.sapzil.graphqlj.language.ast.OperationDefinition;
+import org.sapzil.graphqlj.language.ast.SelectionSet;
+import org.sapzil.graphqlj.language.ast.Value;
+import org.sapzil.graphqlj.language.ast.Variable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Measures the depth, field count and estimated cost of an operation, so
+ * that expensive queries can be rejected before they are executed.
+ *
+ * Every field costs the default field cost unless setFieldCost() gives its
+ * name another one. A field with a size argument (first or last, by
+ * default) is taken to return that many items, so the cost of the fields
+ * below it is multiplied by the argument's value. Fields and fragments
+ * excluded by a constant or known-variable skip or include directive are
+ * not counted.
+ *
+ * Each fragment the operation spreads, directly or not, is measured once
+ * beforehand, after the fragments it spreads itself, and its measurements
+ * are reused for all of its spreads; fragments spread many times are never
+ * expanded, and long chains of fragments need no recursion. The operation
+ * is then measured in one pass, which stops and reports the first limit
+ * exceeded.
+ *
+ * Configure the analyzer before sharing it; analyze() may then be called
+ * from any number of threads.
+ */
+public final class ComplexityAnalyzer {
+    private static final Summary EMPTY = new Summary(0, 0, 0);
+
+    private int maxDepth = Integer.MAX_VALUE;
+    private long maxFieldCount = Long.MAX_VALUE;
+    private long maxCost = Long.MAX_VALUE;
+    private int defaultFieldCost = 1;
+    private final Map<String, Integer> fieldCosts = new HashMap<>();
+    private final Set<String> sizeArguments = new HashSet<>(Arrays.asList("first", "last"));
+
+    public ComplexityAnalyzer setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+        return this;
+    }
+
+    public ComplexityAnalyzer setMaxFieldCount(long maxFieldCount) {
+        this.maxFieldCount = maxFieldCount;
+        return this;
+    }
+
+    public ComplexityAnalyzer setMaxCost(long maxCost) {
+        this.maxCost = maxCost;
+        return this;
+    }
+
+    /**
+     * Sets the cost of fields that have no cost of their own. It is 1 by
+     * default.
+     */
+    public ComplexityAnalyzer setDefaultFieldCost(int cost) {
+        this.defaultFieldCost = cost;
+        return this;
+    }
+
+    /**
+     * Sets the cost of every field with the given name.
+     */
+    public ComplexityAnalyzer setFieldCost(String fieldName, int cost) {
+        fieldCosts.put(fieldName, cost);
+        return this;
+    }
+
+    /**
+     * Sets the names of the arguments that give the number of items a
+     * field returns, replacing the default of first and last.
+     */
+    public ComplexityAnalyzer setSizeArguments(String... names) {
+        sizeArguments.clear();
+        sizeArguments.addAll(Arrays.asList(names));
+        return this;
+    }
+
+    /**
+     * Analyzes the only operation of the document, without variables.
+     */
+    public Complexity analyze(Document document) {
+        return analyze(document, null, null);
+    }
+
+    /**
+     * Analyzes the named operation of the document, or its only operation
+     * if the name is null. The variables, which may be null, resolve size
+     * arguments and directives given as variables.
+     *
+     * @throws IllegalArgumentException if there is no such operation
+     */
+    public Complexity analyze(Document document, String operationName, Map<String, ?> variables) {
+        SelectedOperation selected = SelectedOperation.select(document, operationName);
+        OperationDefinition operation = selected.getOperation();
+        Analysis analysis = new Analysis(selected.getFragments(), variables != null ? variables : Collections.emptyMap());
+        analysis.summarizeFragments(operation.getSelectionSet());
+        Pass pass = new Pass(analysis, true);
+        pass.run(operation.getSelectionSet());
+        return new Complexity(pass.depths[0], (int) Math.min(pass.totalFieldCount, Integer.MAX_VALUE), pass.costs[0], pass.error);
+    }
+
+    /**
+     * The measurements of a fragment, relative to where it is spread.
+     */
+    private static final class Summary {
+        final long cost;
+        final long fieldCount;
+        final int depth;
+
+        Summary(long cost, long fieldCount, int depth) {
+            this.cost = cost;
+            this.fieldCount = fieldCount;
+            this.depth = depth;
+        }
+    }
+
+    /**
+     * The state shared by the passes over an operation and its fragments.
+     */
+    private final class Analysis {
+        final Map<String, FragmentDefinition> fragments;
+        final Map<String, ?> variables;
+        // The fragments the operation spreads, directly or not, in the order
+        // they are reached, with the indexes of the fragments each spreads
+        // (-1 for unknown fragments) and their summaries.
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final List<FragmentDefinition> reached = new ArrayList<>();
+        private final List<int[]> spreadTargets = new ArrayList<>();
+        private Summary[] summaries;
+
+        Analysis(Map<String, FragmentDefinition> fragments, Map<String, ?> variables) {
+            this.fragments = fragments;
+            this.variables = variables;
+        }
+
+        /**
+         * Measures every fragment the selection set spreads, directly or
+         * not, each after the fragments it spreads itself, walking the
+         * spread graph depth first without recursion. A spread that closes
+         * a cycle, which is invalid, counts as empty.
+         */
+        void summarizeFragments(SelectionSet selectionSet) {
+            spreadTargets(selectionSet);
+            for (int i = 0; i < reached.size(); i++) {
+                spreadTargets.add(spreadTargets(reached.get(i).getSelectionSet()));
+            }
+            int count = reached.size();
+            summaries = new Summary[count];
+            boolean[] visited = new boolean[count];
+            // The path: the fragments entered, and how many of their spreads
+            // have been followed.
+            int[] path = new int[count];
+            int[] followed = new int[count];
+            for (int root = 0; root < count; root++) {
+                if (visited[root]) {
+                    continue;
+                }
+                visited[root] = true;
+                int depth = 0;
+                path[0] = root;
+                followed[0] = 0;
+                while (depth >= 0) {
+                    int fragment = path[depth];
+                    int[] targets = spreadTargets.get(fragment);
+                    if (followed[depth] == targets.length) {
+                        summaries[fragment] = measure(reached.get(fragment));
+                        depth--;
+                        continue;
+                    }
+                    int target = targets[followed[depth]++];
+                    if (target >= 0 && !visited[target]) {
+                        visited[target] = true;
+                        depth++;
+                        path[depth] = target;
+                        followed[depth] = 0;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Returns the indexes of the fragments spread in the selection set,
+         * indexing fragments reached for the first time.
+         */
+        private int[] spreadTargets(SelectionSet selectionSet) {
+            final List<String> names = new ArrayList<>();
+            Walker.walk(selectionSet, new Visitor() {
+                @Override public VisitAction enter(Node node, Walker walker) {
+                    switch (node.getKind()) {
+                    case FRAGMENT_SPREAD:
+                        names.add(((FragmentSpread) node).getName().getValue());
+                        return VisitAction.SKIP;
+                    case SELECTION_SET:
+                    case FIELD:
+                    case INLINE_FRAGMENT:
+                        return VisitAction.CONTINUE;
+                    default:
+                        return VisitAction.SKIP;
+                    }
+                }
+            });
+            int[] targets = new int[names.size()];
+            for (int i = 0; i < targets.length; i++) {
+                String name = names.get(i);
+                Integer index = indexes.get(name);
+                if (index == null) {
+                    FragmentDefinition fragment = fragments.get(name);
+                    if (fragment == null) {
+                        targets[i] = -1;
+                        continue;
+                    }
+                    index = reached.size();
+                    reached.add(fragment);
+                    indexes.put(name, index);
+                }
+                targets[i] = index;
+            }
+            return targets;
+        }
+
+        private Summary measure(FragmentDefinition fragment) {
+            Pass pass = new Pass(this, false);
+            pass.run(fragment.getSelectionSet());
+            return new Summary(pass.costs[0], pass.fieldCounts[0], pass.depths[0]);
+        }
+
+        /**
+         * Returns the summary of a fragment, or an empty one if it is
+         * unknown or spread within itself.
+         */
+        Summary summary(String fragmentName) {
+            Integer index = indexes.get(fragmentName);
+            Summary summary = index != null ? summaries[index] : null;
+            return summary != null ? summary : EMPTY;
+        }
+    }
+
+    /**
+     * A walk over one selection set. Each field being walked has a frame
+     * accumulating the measurements of its children; frame 0 is the
+     * selection set itself.
+     */
+    private final class Pass extends Visitor {
+        private final Analysis analysis;
+        // Whether this is the pass over the operation, which enforces the
+        // limits; fragment passes only measure.
+        private final boolean checkLimits;
+
+        long[] costs = new long[16];
+        long[] fieldCounts = new long[16];
+        int[] depths = new int[16];
+        private long[] ownCosts = new long[16];
+        private long[] multipliers = new long[16];
+        private int top;
+
+        long totalFieldCount;
+        ValidationError error;
+
+        Pass(Analysis analysis, boolean checkLimits) {
+            this.analysis = analysis;
+            this.checkLimits = checkLimits;
+            this.multipliers[0] = 1;
+        }
+
+        void run(SelectionSet selectionSet) {
+            new Walker().traverse(selectionSet, this);
+        }
+
+        @Override public VisitAction enter(Node node, Walker walker) {
+            switch (node.getKind()) {
+            case SELECTION_SET:
+                return VisitAction.CONTINUE;
+            case FIELD: {
+                Field field = (Field) node;
+                if (isExcluded(field.getDirectives())) {
+                    return VisitAction.SKIP;
+                }
+                push(fieldCost(field), multiplier(field));
+                totalFieldCount++;
+                if (checkLimits) {
+                    if (top > maxDepth) {
+                        return fail("Operation depth exceeds the limit of " + maxDepth + ".", field);
+                    }
+                    if (totalFieldCount > maxFieldCount) {
+                        return fail("Operation selects more than " + maxFieldCount + " fields.", field);
+                    }
+                }
+                return VisitAction.CONTINUE;
+            }
+            case INLINE_FRAGMENT:
+                // Its fields count as fields of the enclosing selection set.
+                return isExcluded(((InlineFragment) node).getDirectives()) ? VisitAction.SKIP : VisitAction.CONTINUE;
+            case FRAGMENT_SPREAD: {
+                FragmentSpread spread = (FragmentSpread) node;
+                if (isExcluded(spread.getDirectives())) {
+                    return VisitAction.SKIP;
+                }
+                Summary summary = analysis.summary(spread.getName().getValue());
+                costs[top] = add(costs[top], summary.cost);
+                fieldCounts[top] = add(fieldCounts[top], summary.fieldCount);
+                depths[top] = Math.max(depths[top], summary.depth);
+                totalFieldCount = add(totalFieldCount, summary.fieldCount);
+                if (checkLimits) {
+                    if ((long) top + summary.depth > maxDepth) {
+                        return fail("Operation depth exceeds the limit of " + maxDepth + ".", spread);
+                    }
+                    if (totalFieldCount > maxFieldCount) {
+                        return fail("Operation selects more than " + maxFieldCount + " fields.", spread);
+                    }
+                    if (top == 0 && costs[0] > maxCost) {
+                        return fail("Operation cost exceeds the limit of " + maxCost + ".", spread);
+                    }
+                }
+                return VisitAction.SKIP;
+            }
+            default:
+                // Names, arguments and directives.
+                return VisitAction.SKIP;
+            }
+        }
+
+        @Override public VisitAction leave(Node node, Walker walker) {
+            if (node.getKind() != NodeKind.FIELD) {
+                return VisitAction.CONTINUE;
+            }
+            pop();
+            // Costs only grow once they reach the selection set itself.
+            if (checkLimits && top == 0 && costs[0] > maxCost) {
+                return fail("Operation cost exceeds the limit of " + maxCost + ".", node);
+            }
+            return VisitAction.CONTINUE;
+        }
+
+        private VisitAction fail(String message, Node node) {
+            error = new ValidationError(message, node);
+            // Report what was measured of the fields left open.
+            while (top > 0) {
+                pop();
+            }
+            return VisitAction.BREAK;
+        }
+
+        private void push(long ownCost, long multiplier) {
+            top++;
+            if (top == costs.length) {
+                int length = top * 2;
+                costs = Arrays.copyOf(costs, length);
+                fieldCounts = Arrays.copyOf(fieldCounts, length);
+                depths = Arrays.copyOf(depths, length);
+                ownCosts = Arrays.copyOf(ownCosts, length);
+                multipliers = Arrays.copyOf(multipliers, length);
+            }
+            costs[top] = 0;
+            fieldCounts[top] = 0;
+            depths[top] = 0;
+            ownCosts[top] = ownCost;
+            multipliers[top] = multiplier;
+        }
+
+        /**
+         * Completes the innermost field and adds it to its parent.
+         */
+        private void pop() {
+            long cost = add(ownCosts[top], multiply(multipliers[top], costs[top]));
+            long fieldCount = add(1, fieldCounts[top]);
+            int depth = depths[top] + 1;
+            top--;
+            costs[top] = add(costs[top], cost);
+            fieldCounts[top] = add(fieldCounts[top], fieldCount);
+            depths[top] = Math.max(depths[top], depth);
+        }
+
+        private long fieldCost(Field field) {
+            Integer cost = fieldCosts.get(field.getName().getValue());
+            return Math.max(0, cost != null ? cost : defaultFieldCost);
+        }
+
+        /**
+         * Returns the number of items the field returns according to its
+         * size arguments, or 1 if it has none.
+         */
+        private long multiplier(Field field) {
+            List<Argument> arguments = field.getArguments();
+            long multiplier = -1;
+            for (int i = 0; i < arguments.size(); i++) {
+                Argument argument = arguments.get(i);
+                if (sizeArguments.contains(argument.getName().getValue())) {
+                    multiplier = Math.max(multiplier, size(argument.getValue()));
+                }
+            }
+            return multiplier < 0 ? 1 : multiplier;
+        }
+
+        private long size(Value value) {
+            if (value.getKind() == NodeKind.INT_VALUE) {
+                try {
+                    return Math.max(0, ((IntValue) value).longValue());
+                } catch (ArithmeticException e) {
+                    return ((IntValue) value).getValue().startsWith("-") ? 0 : Long.MAX_VALUE;
+                }
+            }
+            if (value.getKind() == NodeKind.VARIABLE) {
+                Object size = analysis.variables.get(((Variable) value).getName().getValue());
+                if (size instanceof Number) {
+                    return Math.max(0, ((Number) size).longValue());
+                }
+            }
+            return 1;
+        }
+
+        /**
+         * Returns true if a skip or include directive excludes the selection.
+         */
+        private boolean isExcluded(List<Directive> directives) {
+            for (int i = 0; i < directives.size(); i++) {
+                Directive directive = directives.get(i);
+                String name = directive.getName().getValue();
+                if (name.equals("skip") && isTrue(directive.getValue())) {
+                    return true;
+                }
+                if (name.equals("include") && isFalse(directive.getValue())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean isTrue(Value value) {
+            return Boolean.TRUE.equals(constant(value));
+        }
+
+        private boolean isFalse(Value value) {
+            return Boolean.FALSE.equals(constant(value));
+        }
+
+        private Object constant(Value value) {
+            if (value == null) {
+                return null;
+            }
+            switch (value.getKind()) {
+            case BOOLEAN_VALUE:
+                return ((BooleanValue) value).getValue();
+            case VARIABLE:
+                return analysis.variables.get(((Variable) value).getName().getValue());
+            default:
+                return null;
+            }
+        }
+    }
+
+    private static long add(long a, long b) {
+        long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    private static long multiply(long a, long b) {
+        if (a == 0 || b == 0) {
+            return 0;
+        }
+        return a > Long.MAX_VALUE / b ? Long.MAX_VALUE : a * b;
+    }
+}
@@ -0,0 +1,148 @@
+package org.sapzil.graphqlj.validation;
+
+import org.sapzil.graphqlj.language.VisitAction;
+import org.sapzil.graphqlj.language.Visitor;
+import org.sapzil.graphqlj.language.Walker;
+import org.sapzil.graphqlj.language.ast.Argument;
+import org.sapzil.graphqlj.language.ast.Definition;
+import org.sapzil.graphqlj.language.ast.Field;
+import org.sapzil.graphqlj.language.ast.FragmentSpread;
+import org.sapzil.graphqlj.language.ast.Node;
+import org.sapzil.graphqlj.language.ast.NodeKind;
+import org.sapzil.graphqlj.language.ast.OperationDefinition;
+import org.sapzil.graphqlj.language.ast.Variable;
+import org.sapzil.graphqlj.language.ast.VariableDefinition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The single walk over one definition that all validation rules share.
+ *
+ * It checks the rules that only look inside one node (unique argument
+ * and variable names) as it goes, and records the fragment
+ * spreads and variable usages of the definition in flat arrays for the
+ * rules that span definitions.
+ */
+final class DefinitionScan extends Visitor {
+    /**
+     * Above this many siblings, duplicates are found with a map rather
+     * than by comparing every pair.
+     */
+    private static final int MAX_PAIRWISE = 8;
+
+    private static final FragmentSpread[] NO_SPREADS = new FragmentSpread[0];
+    private static final Variable[] NO_VARIABLES = new Variable[0];
+
+    final Definition definition;
+
+    FragmentSpread[] spreads = NO_SPREADS;
+    int spreadCount;
+    // Variables used in the definition, not counting variable definitions.
+    Variable[] usages = NO_VARIABLES;
+    int usageCount;
+    // Violations of the rules checked during the walk, in document order.
+    final List<ValidationError> errors = new ArrayList<>(0);
+
+    DefinitionScan(Definition definition) {
+        this.definition = definition;
+    }
+
+    void scan(Walker walker) {
+        walker.traverse(definition, this);
+    }
+
+    @Override public VisitAction enter(Node node, Walker walker) {
+        switch (node.getKind()) {
+        case OPERATION_DEFINITION:
+            checkUniqueNames(((OperationDefinition) node).getVariableDefinitions(), "variable");
+            break;
+        case FIELD:
+            checkUniqueNames(((Field) node).getArguments(), "argument");
+            break;
+        case FRAGMENT_SPREAD:
+            addSpread((FragmentSpread) node);
+            break;
+        case VARIABLE:
+            if (walker.getParent().getKind() != NodeKind.VARIABLE_DEFINITION) {
+                addUsage((Variable) node);
+            }
+            return VisitAction.SKIP;
+        case NAME:
+        case BASE_TYPE:
+        case LIST_TYPE:
+        case NON_NULL_TYPE:
+            // Nothing below these concerns any rule.
+            return VisitAction.SKIP;
+        default:
+            break;
+        }
+        return VisitAction.CONTINUE;
+    }
+
+    private void addSpread(FragmentSpread spread) {
+        if (spreadCount == spreads.length) {
+            spreads = Arrays.copyOf(spreads, Math.max(4, spreadCount * 2));
+        }
+        spreads[spreadCount++] = spread;
+    }
+
+    private void addUsage(Variable variable) {
+        if (usageCount == usages.length) {
+            usages = Arrays.copyOf(usages, Math.max(4, usageCount * 2));
+        }
+        usages[usageCount++] = variable;
+    }
+
+    /**
+     * Reports every node whose name was already used by an earlier sibling,
+     * together with the first node of that name.
+     */
+    private void checkUniqueNames(List<? extends Node> nodes, String what) {
+        int size = nodes.size();
+        if (size < 2) {
+            return;
+        }
+        if (size <= MAX_PAIRWISE) {
+            for (int i = 1; i < size; i++) {
+                String name = nameOf(nodes.get(i));
+                for (int j = 0; j < i; j++) {
+                    if (name.equals(nameOf(nodes.get(j)))) {
+                        duplicateName(what, name, nodes.get(j), nodes.get(i));
+                        break;
+                    }
+                }
+            }
+            return;
+        }
+        Map<String, Node> seen = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            Node node = nodes.get(i);
+            String name = nameOf(node);
+            Node first = seen.get(name);
+            if (first == null) {
+                seen.put(name, node);
+            } else {
+                duplicateName(what, name, first, node);
+            }
+        }
+    }
+
+    private void duplicateName(String what, String name, Node first, Node duplicate) {
+        String prefix = what.equals("variable") ? "$" : "";
+        errors.add(new ValidationError(
+                "There can be only one " + what + " named \"" + prefix + name + "\".", first, duplicate));
+    }
+
+    private static String nameOf(Node node) {
+        switch (node.getKind()) {
+        case ARGUMENT:
+            return ((Argument) node).getName().getValue();
+        default:
+            return ((VariableDefinition) node).getVariable().getName().getValue();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.sapzil.graphqlj.validation;
+
+import org.sapzil.graphqlj.language.DocumentKeyedCache;
+import org.sapzil.graphqlj.language.ast.Document;
+
+import java.util.List;
+
+/**
+ * A cache of validation results keyed by document identity and schema
+ * version.
+ *
+ * Documents are held weakly, so an entry goes away once its document is
+ * no longer referenced, for example after DocumentCache evicts it; put a
+ * DocumentCache in front so that equal queries share one Document and
+ * therefore one entry. The schema version is any number the caller
+ * changes whenever the schema does. Only the result for the most recent
+ * version validated is kept for each document.
+ */
+public final class ValidationCache {
+    private final Validator validator;
+    // Errors only refer to nodes below the document, so they do not keep
+    // their key alive.
+    private final DocumentKeyedCache<Long, List<ValidationError>> results =
+            new DocumentKeyedCache<>(1);
+
+    public ValidationCache(Validator validator) {
+        this.validator = validator;
+    }
+
+    /**
+     * Returns the validation errors of the document against the given
+     * schema version, validating it if it has not been seen with that
+     * version before.
+     *
+     * Concurrent misses for the same document may each validate it; the
+     * results are equal, and the last one is kept.
+     */
+    public List<ValidationError> validate(Document document, long schemaVersion) {
+        List<ValidationError> errors = results.get(document, schemaVersion);
+        if (errors != null) {
+            return errors;
+        }
+        errors = validator.validate(document);
+        results.put(document, schemaVersion, errors);
+        return errors;
+    }
+
+    /**
+     * Returns the cached errors of the document for the given schema
+     * version, or null if it has not been validated against it.
+     */
+    public List<ValidationError> getIfPresent(Document document, long schemaVersion) {
+        return results.get(document, schemaVersion);
+    }
+
+    public void clear() {
+        results.clear();
+    }
+
+    /**
+     * Returns the number of entries, including those of documents that
+     * have been collected but not yet expunged.
+     */
+    public int size() {
+        return results.size();
+    }
+
+    public long getHitCount() {
+        return results.getHitCount();
+    }
+
+    public long getMissCount() {
+        return results.getMissCount();
+    }
+}
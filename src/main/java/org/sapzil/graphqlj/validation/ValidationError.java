@@ -0,0 +1,47 @@
+package org.sapzil.graphqlj.validation;
+
+import org.sapzil.graphqlj.language.SourceLocation;
+import org.sapzil.graphqlj.language.ast.Node;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A rule violation found by Validator, with the nodes it concerns.
+ */
+public final class ValidationError {
+    private final String message;
+    private final List<Node> nodes;
+
+    public ValidationError(String message, Node... nodes) {
+        this.message = message;
+        this.nodes = Collections.unmodifiableList(Arrays.asList(nodes));
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public List<Node> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Returns the line and column of each node that has a source.
+     */
+    public List<SourceLocation> getLocations() {
+        List<SourceLocation> locations = new ArrayList<>(nodes.size());
+        for (Node node : nodes) {
+            if (node.getSource() != null) {
+                locations.add(node.getSource().getLineColumn(node.getStart()));
+            }
+        }
+        return locations;
+    }
+
+    @Override public String toString() {
+        return message;
+    }
+}
@@ -0,0 +1,388 @@
+package org.sapzil.graphqlj.validation;
+
+import org.sapzil.graphqlj.language.Walker;
+import org.sapzil.graphqlj.language.ast.Definition;
+import org.sapzil.graphqlj.language.ast.Document;
+import org.sapzil.graphqlj.language.ast.FragmentDefinition;
+import org.sapzil.graphqlj.language.ast.FragmentSpread;
+import org.sapzil.graphqlj.language.ast.NodeKind;
+import org.sapzil.graphqlj.language.ast.OperationDefinition;
+import org.sapzil.graphqlj.language.ast.Variable;
+import org.sapzil.graphqlj.language.ast.VariableDefinition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Checks a document against the validation rules that do not need a
+ * schema:
+ * - operation names are unique, and an anonymous operation is alone;
+ * - fragment names are unique, every spread names a known fragment,
+ *   every fragment is used, and no fragment spreads itself;
+ * - every variable used by an operation, directly or through fragments,
+ *   is defined by it, and every variable it defines is used;
+ * - argument and variable names are unique where they are declared
+ *   together. (The parser already rejects duplicate input object fields.)
+ *
+ * Each definition is walked once, with all rules sharing the walk; the
+ * rules that span definitions then run over the fragment spreads and
+ * variable usages it recorded, indexed by fragment number.
+ *
+ * Given a ForkJoinPool, documents with many definitions are walked in
+ * parallel, and the fragment rules and the variable rules run as two
+ * independent tasks. The errors are the same either way, and in the same
+ * order. A Validator holds no per-document state and may be shared.
+ */
+public final class Validator {
+    /**
+     * The number of definitions a parallel task walks without splitting.
+     */
+    private static final int DEFINITIONS_PER_TASK = 8;
+
+    private final ForkJoinPool pool;
+    private final int parallelThreshold;
+
+    /**
+     * Creates a validator that works on the calling thread.
+     */
+    public Validator() {
+        this(null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a validator that uses the given pool for documents with at
+     * least parallelThreshold definitions.
+     */
+    public Validator(ForkJoinPool pool, int parallelThreshold) {
+        this.pool = pool;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Returns the rule violations in the document, or an empty list if it
+     * is valid. The list is unmodifiable.
+     */
+    public List<ValidationError> validate(Document document) {
+        List<Definition> definitions = document.getDefinitions();
+        final DefinitionScan[] scans = new DefinitionScan[definitions.size()];
+        for (int i = 0; i < scans.length; i++) {
+            scans[i] = new DefinitionScan(definitions.get(i));
+        }
+        boolean parallel = pool != null && scans.length >= parallelThreshold;
+        if (parallel) {
+            pool.invoke(new ScanTask(scans, 0, scans.length));
+        } else {
+            Walker walker = new Walker();
+            for (DefinitionScan scan : scans) {
+                scan.scan(walker);
+            }
+        }
+
+        final Context context = new Context(scans);
+        List<ValidationError> errors = new ArrayList<>();
+        for (DefinitionScan scan : scans) {
+            errors.addAll(scan.errors);
+        }
+        errors.addAll(context.errors);
+        if (parallel) {
+            ForkJoinTask<List<ValidationError>> fragmentRules = pool.submit(new Callable<List<ValidationError>>() {
+                @Override public List<ValidationError> call() {
+                    return context.checkFragments();
+                }
+            });
+            List<ValidationError> variableErrors = context.checkVariables();
+            errors.addAll(fragmentRules.join());
+            errors.addAll(variableErrors);
+        } else {
+            errors.addAll(context.checkFragments());
+            errors.addAll(context.checkVariables());
+        }
+        return errors.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(errors);
+    }
+
+    private static final class ScanTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final DefinitionScan[] scans;
+        private final int start;
+        private final int end;
+
+        ScanTask(DefinitionScan[] scans, int start, int end) {
+            this.scans = scans;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override protected void compute() {
+            if (end - start > DEFINITIONS_PER_TASK) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new ScanTask(scans, start, middle), new ScanTask(scans, middle, end));
+                return;
+            }
+            Walker walker = new Walker();
+            for (int i = start; i < end; i++) {
+                scans[i].scan(walker);
+            }
+        }
+    }
+
+    /**
+     * The definitions of a document, numbered, and the fragment each
+     * spread refers to. It is built on one thread and only read after.
+     */
+    private static final class Context {
+        final DefinitionScan[] scans;
+        // The index into scans of each operation and each fragment.
+        final int[] operations;
+        final int[] fragments;
+        // Whether each fragment repeats the name of an earlier one. Spreads
+        // of the name refer to the first.
+        final boolean[] duplicates;
+        // For each scan, the fragment number each of its spreads refers to,
+        // or -1 if there is no such fragment.
+        final int[][] spreadTargets;
+        final List<ValidationError> errors = new ArrayList<>(0);
+
+        Context(DefinitionScan[] scans) {
+            this.scans = scans;
+            int operationCount = 0;
+            for (DefinitionScan scan : scans) {
+                if (scan.definition.getKind() == NodeKind.OPERATION_DEFINITION) {
+                    operationCount++;
+                }
+            }
+            operations = new int[operationCount];
+            fragments = new int[scans.length - operationCount];
+            duplicates = new boolean[fragments.length];
+
+            Map<String, OperationDefinition> operationsByName = new HashMap<>();
+            Map<String, Integer> fragmentsByName = new HashMap<>();
+            int operationIndex = 0;
+            int fragmentIndex = 0;
+            for (int i = 0; i < scans.length; i++) {
+                Definition definition = scans[i].definition;
+                if (definition.getKind() == NodeKind.OPERATION_DEFINITION) {
+                    OperationDefinition operation = (OperationDefinition) definition;
+                    operations[operationIndex++] = i;
+                    if (operation.getName() == null) {
+                        if (operationCount > 1) {
+                            errors.add(new ValidationError(
+                                    "This anonymous operation must be the only defined operation.", operation));
+                        }
+                        continue;
+                    }
+                    String name = operation.getName().getValue();
+                    OperationDefinition first = operationsByName.get(name);
+                    if (first == null) {
+                        operationsByName.put(name, operation);
+                    } else {
+                        errors.add(new ValidationError(
+                                "There can only be one operation named \"" + name + "\".", first.getName(), operation.getName()));
+                    }
+                } else {
+                    FragmentDefinition fragment = (FragmentDefinition) definition;
+                    String name = fragment.getName().getValue();
+                    Integer first = fragmentsByName.get(name);
+                    if (first == null) {
+                        fragmentsByName.put(name, fragmentIndex);
+                    } else {
+                        FragmentDefinition firstFragment = (FragmentDefinition) scans[fragments[first]].definition;
+                        errors.add(new ValidationError(
+                                "There can only be one fragment named \"" + name + "\".", firstFragment.getName(), fragment.getName()));
+                        duplicates[fragmentIndex] = true;
+                    }
+                    fragments[fragmentIndex++] = i;
+                }
+            }
+
+            spreadTargets = new int[scans.length][];
+            for (int i = 0; i < scans.length; i++) {
+                DefinitionScan scan = scans[i];
+                int[] targets = new int[scan.spreadCount];
+                for (int j = 0; j < scan.spreadCount; j++) {
+                    FragmentSpread spread = scan.spreads[j];
+                    Integer target = fragmentsByName.get(spread.getName().getValue());
+                    if (target == null) {
+                        targets[j] = -1;
+                        errors.add(new ValidationError(
+                                "Unknown fragment \"" + spread.getName().getValue() + "\".", spread.getName()));
+                    } else {
+                        targets[j] = target;
+                    }
+                }
+                spreadTargets[i] = targets;
+            }
+        }
+
+        /**
+         * Finds unused fragments and fragment cycles.
+         */
+        List<ValidationError> checkFragments() {
+            List<ValidationError> errors = new ArrayList<>(0);
+
+            boolean[] used = new boolean[fragments.length];
+            int[] queue = new int[fragments.length];
+            int queueEnd = 0;
+            for (int operation : operations) {
+                queueEnd = enqueueSpreads(operation, used, queue, queueEnd);
+            }
+            for (int queueStart = 0; queueStart < queueEnd; queueStart++) {
+                queueEnd = enqueueSpreads(fragments[queue[queueStart]], used, queue, queueEnd);
+            }
+            for (int fragment = 0; fragment < fragments.length; fragment++) {
+                // A duplicate is never spread, but it is already an error.
+                if (!used[fragment] && !duplicates[fragment]) {
+                    FragmentDefinition definition = (FragmentDefinition) scans[fragments[fragment]].definition;
+                    errors.add(new ValidationError(
+                            "Fragment \"" + definition.getName().getValue() + "\" is never used.", definition));
+                }
+            }
+
+            detectCycles(errors);
+            return errors;
+        }
+
+        private int enqueueSpreads(int scan, boolean[] seen, int[] queue, int queueEnd) {
+            for (int target : spreadTargets[scan]) {
+                if (target >= 0 && !seen[target]) {
+                    seen[target] = true;
+                    queue[queueEnd++] = target;
+                }
+            }
+            return queueEnd;
+        }
+
+        /**
+         * Walks the spread graph depth first, reporting each cycle once, at
+         * the spread that closes it.
+         */
+        private void detectCycles(List<ValidationError> errors) {
+            boolean[] visited = new boolean[fragments.length];
+            // The position in the path of each fragment on it, or -1.
+            int[] pathIndex = new int[fragments.length];
+            Arrays.fill(pathIndex, -1);
+            // The path: the fragments entered and the spread taken from each.
+            int[] pathFragments = new int[fragments.length];
+            int[] pathSpreads = new int[fragments.length];
+            for (int root = 0; root < fragments.length; root++) {
+                if (visited[root]) {
+                    continue;
+                }
+                visited[root] = true;
+                int depth = 0;
+                pathFragments[0] = root;
+                pathSpreads[0] = -1;
+                pathIndex[root] = 0;
+                while (depth >= 0) {
+                    int fragment = pathFragments[depth];
+                    int[] targets = spreadTargets[fragments[fragment]];
+                    int spread = ++pathSpreads[depth];
+                    if (spread == targets.length) {
+                        pathIndex[fragment] = -1;
+                        depth--;
+                        continue;
+                    }
+                    int target = targets[spread];
+                    if (target < 0) {
+                        continue;
+                    }
+                    if (pathIndex[target] >= 0) {
+                        errors.add(cycleError(target, pathIndex[target], depth, pathFragments, pathSpreads));
+                    } else if (!visited[target]) {
+                        visited[target] = true;
+                        depth++;
+                        pathFragments[depth] = target;
+                        pathSpreads[depth] = -1;
+                        pathIndex[target] = depth;
+                    }
+                }
+            }
+        }
+
+        private ValidationError cycleError(int fragment, int from, int to, int[] pathFragments, int[] pathSpreads) {
+            FragmentSpread[] cycle = new FragmentSpread[to - from + 1];
+            StringBuilder via = new StringBuilder();
+            for (int i = from; i <= to; i++) {
+                FragmentSpread spread = scans[fragments[pathFragments[i]]].spreads[pathSpreads[i]];
+                cycle[i - from] = spread;
+                if (i < to) {
+                    via.append(i > from ? ", " : " via ").append(spread.getName().getValue());
+                }
+            }
+            String name = ((FragmentDefinition) scans[fragments[fragment]].definition).getName().getValue();
+            return new ValidationError("Cannot spread fragment \"" + name + "\" within itself" + via + ".", cycle);
+        }
+
+        /**
+         * Finds undefined and unused variables of each operation, following
+         * its spreads into fragments.
+         */
+        List<ValidationError> checkVariables() {
+            List<ValidationError> errors = new ArrayList<>(0);
+            // The operation number + 1 that last reached each fragment.
+            int[] reachedBy = new int[fragments.length];
+            int[] queue = new int[fragments.length];
+            for (int i = 0; i < operations.length; i++) {
+                OperationDefinition operation = (OperationDefinition) scans[operations[i]].definition;
+                List<VariableDefinition> variableDefinitions = operation.getVariableDefinitions();
+                Set<String> defined = new HashSet<>();
+                for (VariableDefinition variableDefinition : variableDefinitions) {
+                    defined.add(variableDefinition.getVariable().getName().getValue());
+                }
+                Set<String> used = new HashSet<>();
+                checkUsages(operations[i], operation, defined, used, errors);
+                int queueEnd = 0;
+                for (int target : spreadTargets[operations[i]]) {
+                    if (target >= 0 && reachedBy[target] != i + 1) {
+                        reachedBy[target] = i + 1;
+                        queue[queueEnd++] = target;
+                    }
+                }
+                for (int queueStart = 0; queueStart < queueEnd; queueStart++) {
+                    int scan = fragments[queue[queueStart]];
+                    checkUsages(scan, operation, defined, used, errors);
+                    for (int target : spreadTargets[scan]) {
+                        if (target >= 0 && reachedBy[target] != i + 1) {
+                            reachedBy[target] = i + 1;
+                            queue[queueEnd++] = target;
+                        }
+                    }
+                }
+                for (VariableDefinition variableDefinition : variableDefinitions) {
+                    String name = variableDefinition.getVariable().getName().getValue();
+                    if (!used.contains(name)) {
+                        errors.add(new ValidationError(operation.getName() != null
+                                ? "Variable \"$" + name + "\" is never used in operation \"" + operation.getName().getValue() + "\"."
+                                : "Variable \"$" + name + "\" is never used.", variableDefinition));
+                    }
+                }
+            }
+            return errors;
+        }
+
+        private void checkUsages(int scanIndex, OperationDefinition operation, Set<String> defined, Set<String> used,
+                                 List<ValidationError> errors) {
+            DefinitionScan scan = scans[scanIndex];
+            for (int j = 0; j < scan.usageCount; j++) {
+                Variable usage = scan.usages[j];
+                String name = usage.getName().getValue();
+                used.add(name);
+                if (!defined.contains(name)) {
+                    errors.add(new ValidationError(operation.getName() != null
+                            ? "Variable \"$" + name + "\" is not defined by operation \"" + operation.getName().getValue() + "\"."
+                            : "Variable \"$" + name + "\" is not defined.", usage, operation));
+                }
+            }
+        }
+    }
+}
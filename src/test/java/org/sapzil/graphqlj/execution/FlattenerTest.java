@@ -0,0 +1,75 @@
+package org.sapzil.graphqlj.execution;
+
+import org.junit.Test;
+import org.sapzil.graphqlj.language.GraphQLLanguageException;
+import org.sapzil.graphqlj.language.ParseOptions;
+import org.sapzil.graphqlj.language.Parser;
+import org.sapzil.graphqlj.language.Source;
+import org.sapzil.graphqlj.language.ast.Document;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks that type conditions are merged as sets, and that fragments
+ * spread under ever different conditions fail cleanly instead of
+ * expanding exponentially.
+ */
+public class FlattenerTest {
+    @Test
+    public void typeConditionsAreASet() throws GraphQLLanguageException {
+        FlattenedOperation operation = flatten(
+                "{ ... on A { ... on B { ... on A { x } } } ... on B { ... on A { x ... on B { y } } } }");
+        List<CollectedField> fields = operation.getFields();
+        assertEquals(2, fields.size());
+        assertEquals("x", fields.get(0).getResponseKey());
+        assertEquals(Arrays.asList("A", "B"), fields.get(0).getTypeConditions());
+        assertEquals(2, fields.get(0).getFields().size());
+        assertEquals("y", fields.get(1).getResponseKey());
+        assertEquals(Arrays.asList("B", "A"), fields.get(1).getTypeConditions());
+    }
+
+    @Test
+    public void alternatingTypeConditionsStayLinear() throws GraphQLLanguageException {
+        FlattenedOperation operation = flatten(chain(200, false));
+        // x0 under T alone, x1 under T and A or T and B, and x2 to x199 and
+        // the leaf under those or all three.
+        assertEquals(1 + 2 + 3 * 199, operation.getFields().size());
+    }
+
+    @Test
+    public void exponentialExpansionFails() throws GraphQLLanguageException {
+        try {
+            flatten(chain(40, true));
+            fail("flattened an exponential expansion");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Operation expands to more than " + Flattener.DEFAULT_MAX_SELECTIONS + " selections.",
+                    e.getMessage());
+        }
+    }
+
+    /**
+     * Builds a chain of fragments, each spreading the next under two type
+     * conditions: the same two throughout, or two new ones each time.
+     */
+    private static String chain(int length, boolean distinct) {
+        StringBuilder body = new StringBuilder("{ ...G0 }\n");
+        for (int i = 0; i < length; i++) {
+            String a = distinct ? "A" + i : "A";
+            String b = distinct ? "B" + i : "B";
+            body.append("fragment G").append(i).append(" on T { x").append(i)
+                    .append(" ... on ").append(a).append(" { ...G").append(i + 1).append(" }")
+                    .append(" ... on ").append(b).append(" { ...G").append(i + 1).append(" } }\n");
+        }
+        body.append("fragment G").append(length).append(" on T { leaf }\n");
+        return body.toString();
+    }
+
+    private static FlattenedOperation flatten(String body) throws GraphQLLanguageException {
+        Document document = Parser.parse(new Source(body), new ParseOptions());
+        return Flattener.flatten(document, null);
+    }
+}
@@ -0,0 +1,68 @@
+package org.sapzil.graphqlj.language;
+
+import org.junit.Test;
+import org.sapzil.graphqlj.language.ast.Document;
+import org.sapzil.graphqlj.language.ast.Field;
+import org.sapzil.graphqlj.language.ast.IntValue;
+import org.sapzil.graphqlj.language.ast.OperationDefinition;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class DocumentCacheTest {
+    private static final String QUERY = "{ f(a: 12345) }";
+
+    @Test
+    public void hitDoesNotSeeReusedBuffer() throws GraphQLLanguageException {
+        DocumentCache cache = new DocumentCache(new ParseOptions(), 16, 1024);
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        buffer.put(utf8(QUERY));
+        buffer.flip();
+        Document document = cache.parse(Source.fromUtf8(buffer, "GraphQL"));
+
+        // The caller reuses its buffer for the next request.
+        buffer.clear();
+        buffer.put(utf8("{ f(a: xyzzy) }"));
+
+        Document hit = cache.parse(Source.fromUtf8(utf8(QUERY)));
+        assertSame(document, hit);
+        assertEquals("12345", argument(hit).getValue());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void stringAndUtf8SourcesAreCachedSeparately() throws GraphQLLanguageException {
+        DocumentCache cache = new DocumentCache(new ParseOptions(), 16, 1024);
+        Document fromString = cache.parse(new Source(QUERY));
+        Document fromBytes = cache.parse(Source.fromUtf8(utf8(QUERY)));
+        assertNotSame(fromString, fromBytes);
+        assertSame(fromString, cache.parse(new Source(QUERY)));
+        assertSame(fromBytes, cache.parse(Source.fromUtf8(utf8(QUERY))));
+        assertEquals(2, cache.size());
+        assertEquals(2 * QUERY.length(), cache.getWeight());
+    }
+
+    @Test
+    public void overweightBodyIsNotCached() throws GraphQLLanguageException {
+        DocumentCache cache = new DocumentCache(new ParseOptions(), 16, QUERY.length() - 1);
+        Document document = cache.parse(Source.fromUtf8(utf8(QUERY)));
+        assertEquals("12345", argument(document).getValue());
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getWeight());
+    }
+
+    private static IntValue argument(Document document) {
+        OperationDefinition operation = (OperationDefinition) document.getDefinitions().get(0);
+        Field field = (Field) operation.getSelectionSet().getSelections().get(0);
+        return (IntValue) field.getArguments().get(0).getValue();
+    }
+
+    private static byte[] utf8(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
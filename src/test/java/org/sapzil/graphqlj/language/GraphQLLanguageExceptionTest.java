@@ -0,0 +1,61 @@
+package org.sapzil.graphqlj.language;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class GraphQLLanguageExceptionTest {
+    private static final String BODY = "{ a\n  b ! }";
+
+    @Test
+    public void serializedErrorKeepsMessageAndLocation() throws Exception {
+        checkRoundTrip(new Source(BODY));
+        checkRoundTrip(Source.fromUtf8(BODY.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void serializedLimitErrorKeepsKind() throws Exception {
+        try {
+            Parser.parse(new Source("{ a }"), new ParseOptions().setMaxTokens(2));
+            fail("parsed over the token limit");
+        } catch (LimitExceededException e) {
+            GraphQLLanguageException copy = roundTrip(e);
+            assertEquals(LimitExceededException.class, copy.getClass());
+            assertEquals("Limit Exceeded GraphQL (1:5) Document contains more than 2 tokens.", copy.getMessage());
+        }
+    }
+
+    private static void checkRoundTrip(Source source) throws Exception {
+        try {
+            Parser.parse(source, new ParseOptions());
+            fail("parsed an invalid document");
+        } catch (GraphQLLanguageException e) {
+            GraphQLLanguageException copy = roundTrip(e);
+            assertEquals("Syntax Error GraphQL (2:5) Expected Name, found !", copy.getMessage());
+            assertEquals(new SourceLocation(2, 5), copy.getLocation());
+            assertEquals(e.getDescription(), copy.getDescription());
+            assertEquals(e.getPosition(), copy.getPosition());
+            assertNull(copy.getSource());
+        }
+    }
+
+    private static GraphQLLanguageException roundTrip(GraphQLLanguageException e)
+            throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(e);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (GraphQLLanguageException) in.readObject();
+        }
+    }
+}
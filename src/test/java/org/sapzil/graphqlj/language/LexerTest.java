@@ -0,0 +1,108 @@
+package org.sapzil.graphqlj.language;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Lexes the same documents from String and UTF-8 sources and checks that
+ * both produce the same tokens and errors. Positions of UTF-8 sources are
+ * byte offsets, so they are compared after mapping the char offsets of
+ * the String source to bytes.
+ */
+public class LexerTest {
+    /**
+     * Pieces that documents are assembled from: tokens, whitespace and
+     * comments, including NUL, escapes and non-ASCII characters of one to
+     * four bytes.
+     */
+    private static final String[] PIECES = {
+            "{", "}", "(", ")", "[", "]", ":", "!", "$", "@", "=", "|", "...",
+            "name", "_x9", "query", "0", "-12", "3.25", "-0.5e-10", "1.0e3",
+            "\"\"", "\"plain string\"", "\"esc\\\"aped\\\\\\/\\b\\f\\n\\r\\t\"", "\"\\u00e9\\uAC00\"",
+            "\"caf\u00e9\"", "\"\uac00\ub098\"", "\"\ud83d\ude00 emoji\"", "\"\u00e9\\n\u00e9\"",
+            "# comment\n", "#\u00e9\u00e9\n", "# \ud83d\ude00\r\n", "#\u2028", "# no newline",
+            " ", "  ", "        ", "                 ", "\t", ",", "\n", "\r\n", "\u00a0", "\u2029",
+    };
+
+    /**
+     * Pieces that make the lexer fail.
+     */
+    private static final String[] BAD_PIECES = {
+            "\u0000", "\"unterminated", "\"bad \\x escape\"", "\"\\u12G4\"", "\"line\nbreak\"",
+            "\"\u2028\"", "..", ".", "-", "1.", "1.5e", "00", "\u00e9", "?",
+    };
+
+    @Test
+    public void tokensMatchAcrossSources() {
+        Random random = new Random(7);
+        for (int i = 0; i < 20000; i++) {
+            StringBuilder body = new StringBuilder();
+            int count = random.nextInt(24);
+            for (int j = 0; j < count; j++) {
+                body.append(PIECES[random.nextInt(PIECES.length)]);
+                // Tokens that would run together are separated.
+                body.append(random.nextBoolean() ? " " : "\n");
+            }
+            if (random.nextInt(4) == 0) {
+                int position = random.nextInt(body.length() + 1);
+                if (position > 0 && Character.isHighSurrogate(body.charAt(position - 1))) {
+                    // Do not split a surrogate pair.
+                    position--;
+                }
+                body.insert(position, BAD_PIECES[random.nextInt(BAD_PIECES.length)]);
+            }
+            check(body.toString());
+        }
+    }
+
+    @Test
+    public void truncatedTokensMatchAcrossSources() {
+        String body = "query Q($v: [Int!] = -1.5e-3) { a ...F b(s: \"caf\u00e9 \\u00e9\") } # \u00e9\n";
+        for (int end = 0; end <= body.length(); end++) {
+            if (end > 0 && Character.isHighSurrogate(body.charAt(end - 1))) {
+                continue;
+            }
+            check(body.substring(0, end));
+        }
+    }
+
+    private static void check(String body) {
+        List<String> expected = lex(new Source(body), body);
+        List<String> actual = lex(Source.fromUtf8(body.getBytes(StandardCharsets.UTF_8)), null);
+        assertEquals(body, expected, actual);
+    }
+
+    /**
+     * Describes each token, or the error that ended the input. Positions
+     * of String sources are mapped to UTF-8 byte offsets using the body.
+     */
+    private static List<String> lex(Source source, String body) {
+        List<String> tokens = new ArrayList<>();
+        Lexer lexer = new Lexer(source);
+        try {
+            do {
+                lexer.advance();
+                tokens.add(lexer.getKind() + " " + bytes(body, lexer.getStart()) + "-" + bytes(body, lexer.getEnd()) +
+                        " " + lexer.getValue());
+            } while (lexer.getKind() != TokenKind.EOF);
+        } catch (GraphQLLanguageException e) {
+            String description = e.getDescription();
+            // A lone char of the String source is a whole character in UTF-8.
+            tokens.add("error " + bytes(body, e.getPosition()) + " " + description);
+        }
+        return tokens;
+    }
+
+    private static int bytes(String body, int position) {
+        if (body == null) {
+            return position;
+        }
+        return body.substring(0, position).getBytes(StandardCharsets.UTF_8).length;
+    }
+}
@@ -0,0 +1,52 @@
+package org.sapzil.graphqlj.language;
+
+import org.junit.Test;
+import org.sapzil.graphqlj.language.ast.Document;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class NormalizerTest {
+    private static final String QUERY =
+            "query Q($b: Int, $a: String) {\n  f(z: 1, a: {y: 2, x: \"\\u00e9\"}) @skip: $b { g }\n}";
+    private static final String REORDERED =
+            "query Q($a:String,$b:Int){f(a:{x:\"\u00e9\",y:2},z:1)@skip:$b{g}}";
+
+    @Test
+    public void normalizeSortsAndCompacts() throws GraphQLLanguageException {
+        String expected = "query Q($a:String$b:Int){f(a:{x:\"\u00e9\"y:2}z:1)@skip:$b{g}}";
+        assertEquals(expected, Normalizer.normalize(parse(QUERY)));
+        assertEquals(expected, Normalizer.normalize(parse(REORDERED)));
+    }
+
+    @Test
+    public void equalDocumentsHaveEqualFingerprints() throws GraphQLLanguageException {
+        Fingerprint fingerprint = Normalizer.fingerprint(parse(QUERY));
+        assertEquals(fingerprint, Normalizer.fingerprint(parse(REORDERED)));
+        // The fingerprint is that of the canonical text.
+        assertEquals(Fingerprint.of(Normalizer.normalize(parse(QUERY))), fingerprint);
+        // Numbers are printed as written.
+        assertFalse(fingerprint.equals(Normalizer.fingerprint(parse(REORDERED.replace("z:1", "z:1.0")))));
+    }
+
+    @Test
+    public void fingerprintIsMurmur3() {
+        assertEquals("00000000000000000000000000000000", Fingerprint.of("").toString());
+        assertEquals("cbd8a7b341bd9b025b1e906a48ae1d19", Fingerprint.of("hello").toString());
+    }
+
+    @Test
+    public void tokenFingerprintIgnoresWhitespaceAndComments() throws GraphQLLanguageException {
+        Fingerprint fingerprint = Normalizer.fingerprintTokens(new Source("{a b}"));
+        assertEquals(fingerprint, Normalizer.fingerprintTokens(new Source("{ a, b # c\n }")));
+        assertEquals(fingerprint, Normalizer.fingerprintTokens(
+                Source.fromUtf8("{a  \t b}".getBytes(StandardCharsets.UTF_8))));
+        assertFalse(fingerprint.equals(Normalizer.fingerprintTokens(new Source("{ab}"))));
+    }
+
+    private static Document parse(String body) throws GraphQLLanguageException {
+        return Parser.parse(new Source(body), new ParseOptions());
+    }
+}
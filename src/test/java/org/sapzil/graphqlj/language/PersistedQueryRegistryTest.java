@@ -0,0 +1,90 @@
+package org.sapzil.graphqlj.language;
+
+import org.junit.Test;
+import org.sapzil.graphqlj.language.ast.Document;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class PersistedQueryRegistryTest {
+    private static final String BODY = "{ f(s: \"caf\u00e9\") }";
+    // sha256sum of the UTF-8 encoded body.
+    private static final String HASH = "d34f0ef9659afa1e57e1f081f61fb18fba34b645dfedf1c1b47a8cdeefa96375";
+
+    @Test
+    public void hashIsSha256OfUtf8() {
+        assertEquals("1c7e1e347f726166b5b1c55afd61f278cc9b45e00c108ec33d540a566379811b",
+                PersistedQueryRegistry.hash("{ a }"));
+        assertEquals(HASH, PersistedQueryRegistry.hash(BODY));
+        assertEquals(HASH, PersistedQueryRegistry.hash(new Source(BODY)));
+        assertEquals(HASH, PersistedQueryRegistry.hash(Source.fromUtf8(BODY.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    public void registeredQueryIsFoundByHash() throws GraphQLLanguageException {
+        PersistedQueryRegistry registry = new PersistedQueryRegistry(new ParseOptions());
+        assertEquals(HASH, registry.register(Source.fromUtf8(BODY.getBytes(StandardCharsets.UTF_8))));
+        Document document = registry.get(HASH);
+        assertNotNull(document);
+        assertEquals(1, document.getDefinitions().size());
+        assertNull(registry.get(PersistedQueryRegistry.hash("{ a }")));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    public void loadDirectory() throws IOException, GraphQLLanguageException {
+        Path directory = Files.createTempDirectory("persisted");
+        try {
+            write(directory.resolve("a.graphql"), BODY);
+            write(directory.resolve("b.graphql"), "{ a }");
+            write(directory.resolve("ignored.txt"), "not a query");
+            PersistedQueryRegistry registry = new PersistedQueryRegistry(new ParseOptions());
+            assertEquals(2, registry.loadDirectory(directory, 2));
+            assertNotNull(registry.get(HASH));
+            assertNotNull(registry.get(PersistedQueryRegistry.hash("{ a }")));
+            assertEquals(2, registry.size());
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void loadDirectoryRegistersNothingOnError() throws IOException {
+        Path directory = Files.createTempDirectory("persisted");
+        try {
+            write(directory.resolve("a.graphql"), BODY);
+            write(directory.resolve("b.graphql"), "{ a");
+            PersistedQueryRegistry registry = new PersistedQueryRegistry(new ParseOptions());
+            try {
+                registry.loadDirectory(directory, 2);
+                fail("loaded an invalid query");
+            } catch (GraphQLLanguageException e) {
+                assertEquals(directory.resolve("b.graphql").toString(), e.getSource().getName());
+            }
+            assertEquals(0, registry.size());
+        } finally {
+            delete(directory);
+        }
+    }
+
+    private static void write(Path file, String body) throws IOException {
+        Files.write(file, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+}
@@ -0,0 +1,238 @@
+package org.sapzil.graphqlj.language;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the word-at-a-time scanners of Source (skipSpaces, scanComment
+ * and scanString) against a plain loop over the code units, for String
+ * sources and for UTF-8 sources backed by aligned, unaligned and direct
+ * buffers.
+ *
+ * Inputs are up to three words long, so that every stop position falls in
+ * every lane of a word and in the tail that is scanned unit by unit.
+ */
+public class SourceTest {
+    private static final int MAX_LENGTH = 25;
+    private static final int MAX_START = 9;
+
+    private static final int SPACES = 0;
+    private static final int COMMENT = 1;
+    private static final int STRING = 2;
+
+    /**
+     * Units that stop some scanner, and units that differ from those in a
+     * single bit or only in the high bit and must not.
+     */
+    private static final int[] UNITS = {
+            0x00, 0x01, 0x09, 0x0a, 0x0b, 0x0c, 0x0d, 0x0e, 0x1f, ' ', '!', '"', '#', 'a',
+            '\\', ']', 0x7f, 0x80, 0x8a, 0x8d, 0xa0, 0xa2, 0xc2, 0xdc, 0xe2, 0xf0, 0xff,
+    };
+
+    @Test
+    public void skipSpacesStopsAtEveryLane() {
+        checkSingleUnit(SPACES, ' ');
+    }
+
+    @Test
+    public void scanCommentStopsAtEveryLane() {
+        checkSingleUnit(COMMENT, 'a');
+    }
+
+    @Test
+    public void scanStringStopsAtEveryLane() {
+        checkSingleUnit(STRING, 'a');
+    }
+
+    @Test
+    public void firstStopInWordWins() {
+        int[] stops = {0x00, '\n', '"', 0x80};
+        for (int scanner = COMMENT; scanner <= STRING; scanner++) {
+            for (int length = 2; length <= 17; length++) {
+                for (int first = 0; first < length; first++) {
+                    for (int second = first + 1; second < length; second++) {
+                        for (int stop : stops) {
+                            int[] units = filled(length, 'a');
+                            units[first] = '\n';
+                            units[second] = stop;
+                            check(scanner, units, 0);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void randomInput() {
+        Random random = new Random(42);
+        for (int i = 0; i < 200000; i++) {
+            int length = random.nextInt(MAX_LENGTH + 8);
+            int[] units = new int[length];
+            // Mostly the filler of each scanner, so that runs are long.
+            for (int j = 0; j < length; j++) {
+                int r = random.nextInt(16);
+                units[j] = r < 6 ? ' ' : r < 12 ? 'a' : UNITS[random.nextInt(UNITS.length)];
+            }
+            int start = length == 0 ? 0 : random.nextInt(length + 1);
+            check(random.nextInt(3), units, start);
+        }
+    }
+
+    @Test
+    public void nonLatin1StopsStringSources() {
+        char[] chars = {'\u0100', '\u2028', '\uac00', '\ud83d', '\uffff'};
+        for (char c : chars) {
+            for (int length = 1; length <= 17; length++) {
+                for (int position = 0; position < length; position++) {
+                    char[] text = new char[length];
+                    Arrays.fill(text, 'a');
+                    text[position] = c;
+                    Source source = new Source(new String(text));
+                    assertEquals(position, source.scanComment(0));
+                    assertEquals(position, source.scanString(0));
+                    Arrays.fill(text, ' ');
+                    text[position] = c;
+                    assertEquals(position, new Source(new String(text)).skipSpaces(0));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void multiByteCharactersStopUtf8Sources() {
+        String[] texts = {"\u00e9", "\u2028", "\uac00", "\ud83d\ude00"};
+        for (String text : texts) {
+            byte[] encoded = utf8(text);
+            for (int length = encoded.length; length <= 20; length++) {
+                for (int position = 0; position + encoded.length <= length; position++) {
+                    int[] units = filled(length, 'a');
+                    for (int i = 0; i < encoded.length; i++) {
+                        units[position + i] = encoded[i] & 0xff;
+                    }
+                    for (int start = 0; start <= position; start++) {
+                        assertEquals(position, utf8Source(units, 0).scanComment(start));
+                        assertEquals(position, utf8Source(units, 5).scanString(start));
+                    }
+                }
+            }
+        }
+    }
+
+    private static void checkSingleUnit(int scanner, int filler) {
+        for (int length = 0; length <= MAX_LENGTH; length++) {
+            for (int start = 0; start <= Math.min(length, MAX_START); start++) {
+                check(scanner, filled(length, filler), start);
+                for (int position = start; position < length; position++) {
+                    for (int unit : UNITS) {
+                        int[] units = filled(length, filler);
+                        units[position] = unit;
+                        check(scanner, units, start);
+                    }
+                }
+            }
+        }
+    }
+
+    private static int[] filled(int length, int filler) {
+        int[] units = new int[length];
+        Arrays.fill(units, filler);
+        return units;
+    }
+
+    /**
+     * Checks the given scanner on every kind of source holding the units.
+     */
+    private static void check(int scanner, int[] units, int start) {
+        int expected = reference(scanner, units, start);
+        String message = describe(scanner, units, start);
+        assertEquals(message, expected, scan(scanner, stringSource(units), start));
+        assertEquals(message, expected, scan(scanner, utf8Source(units, 0), start));
+        // Offset into the backing array, so words straddle its alignment.
+        assertEquals(message, expected, scan(scanner, utf8Source(units, 3), start));
+        assertEquals(message, expected, scan(scanner, directSource(units), start));
+    }
+
+    private static int scan(int scanner, Source source, int start) {
+        switch (scanner) {
+        case SPACES:
+            return source.skipSpaces(start);
+        case COMMENT:
+            return source.scanComment(start);
+        default:
+            return source.scanString(start);
+        }
+    }
+
+    private static int reference(int scanner, int[] units, int start) {
+        for (int position = start; position < units.length; position++) {
+            int unit = units[position];
+            boolean stop;
+            switch (scanner) {
+            case SPACES:
+                stop = unit != ' ';
+                break;
+            case COMMENT:
+                stop = unit == 0 || unit == '\n' || unit == '\r' || unit >= 0x80;
+                break;
+            default:
+                stop = unit == 0 || unit == '\n' || unit == '\r' || unit == '"' || unit == '\\' || unit >= 0x80;
+                break;
+            }
+            if (stop) {
+                return position;
+            }
+        }
+        return units.length;
+    }
+
+    /**
+     * A String source with one char per unit; chars 0x80-0xff are not
+     * ASCII either, so they stop the scanners just like the bytes do.
+     */
+    private static Source stringSource(int[] units) {
+        char[] chars = new char[units.length];
+        for (int i = 0; i < units.length; i++) {
+            chars[i] = (char) units[i];
+        }
+        return new Source(new String(chars));
+    }
+
+    private static Source utf8Source(int[] units, int offset) {
+        byte[] bytes = new byte[offset + units.length + offset];
+        for (int i = 0; i < units.length; i++) {
+            bytes[offset + i] = (byte) units[i];
+        }
+        // Garbage around the slice must never be read.
+        Arrays.fill(bytes, 0, offset, (byte) 'a');
+        Arrays.fill(bytes, offset + units.length, bytes.length, (byte) 'a');
+        return Source.fromUtf8(ByteBuffer.wrap(bytes, offset, units.length), "GraphQL");
+    }
+
+    private static Source directSource(int[] units) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(units.length);
+        for (int unit : units) {
+            buffer.put((byte) unit);
+        }
+        buffer.flip();
+        return Source.fromUtf8(buffer, "GraphQL");
+    }
+
+    private static byte[] utf8(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String describe(int scanner, int[] units, int start) {
+        StringBuilder sb = new StringBuilder("scanner ").append(scanner).append(" from ").append(start).append(" over");
+        for (int unit : units) {
+            sb.append(' ').append(Integer.toHexString(unit));
+        }
+        return sb.toString();
+    }
+}
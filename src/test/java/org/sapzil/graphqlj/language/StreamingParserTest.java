@@ -0,0 +1,108 @@
+package org.sapzil.graphqlj.language;
+
+import org.junit.Test;
+import org.sapzil.graphqlj.language.ast.Definition;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Feeds documents in chunks split at every position and checks that the
+ * definitions match those of parsing the whole document at once.
+ */
+public class StreamingParserTest {
+    /**
+     * Brackets in strings, comments and object values must not end a
+     * definition; non-ASCII characters must survive being split.
+     */
+    private static final String DOCUMENT =
+            "query A($v: In = {a: [1, 2]}) @d: {y: \"}\"} { a(s: \"{ \\\" }\") # } )\n b { c } }\n" +
+            "fragment F on T @d: {k: \"caf\u00e9 \ud83d\ude00\"} { ...F2 }\r\n" +
+            "\u00a0,\t{ short }\u2028" +
+            "mutation M { m(l: [{a: 1}]) }\n";
+
+    @Test
+    public void everyChunkBoundary() throws GraphQLLanguageException {
+        List<String> expected = print(Parser.parse(new Source(DOCUMENT), new ParseOptions()).getDefinitions());
+        assertEquals(4, expected.size());
+        for (int split = 0; split <= DOCUMENT.length(); split++) {
+            StreamingParser parser = new StreamingParser(new ParseOptions());
+            List<Definition> definitions = new ArrayList<>();
+            definitions.addAll(parser.feed(DOCUMENT.substring(0, split)));
+            definitions.addAll(parser.feed(DOCUMENT.substring(split)));
+            definitions.addAll(parser.finish());
+            assertEquals("split at " + split, expected, print(definitions));
+        }
+    }
+
+    @Test
+    public void everyByteBoundary() throws GraphQLLanguageException {
+        List<String> expected = print(Parser.parse(new Source(DOCUMENT), new ParseOptions()).getDefinitions());
+        byte[] bytes = DOCUMENT.getBytes(StandardCharsets.UTF_8);
+        for (int split = 0; split <= bytes.length; split++) {
+            StreamingParser parser = new StreamingParser(new ParseOptions());
+            List<Definition> definitions = new ArrayList<>();
+            definitions.addAll(parser.feed(ByteBuffer.wrap(bytes, 0, split)));
+            definitions.addAll(parser.feed(ByteBuffer.wrap(bytes, split, bytes.length - split)));
+            definitions.addAll(parser.finish());
+            assertEquals("split at " + split, expected, print(definitions));
+        }
+    }
+
+    @Test
+    public void definitionsAreReturnedOnceComplete() throws GraphQLLanguageException {
+        StreamingParser parser = new StreamingParser(new ParseOptions());
+        assertEquals(0, parser.feed("query A { a { b").size());
+        assertEquals(1, parser.feed(" } } query B").size());
+        assertEquals(0, parser.feed(" { c ").size());
+        assertEquals(1, parser.feed("}").size());
+        assertEquals(0, parser.finish().size());
+    }
+
+    @Test
+    public void finishReportsIncompleteDefinition() throws GraphQLLanguageException {
+        StreamingParser parser = new StreamingParser(new ParseOptions());
+        parser.feed("{ a } { b");
+        try {
+            parser.finish();
+            fail("finished an incomplete definition");
+        } catch (GraphQLLanguageException e) {
+            assertEquals("Syntax Error GraphQL (1:5) Expected Name, found EOF", e.getMessage());
+        }
+    }
+
+    /**
+     * Every character that may follow a document as far as Parser is
+     * concerned, such as whitespace or the start of a comment, may follow
+     * it when streamed too.
+     */
+    @Test
+    public void trailingCharactersSkippedByTheLexer() throws GraphQLLanguageException {
+        for (char c = 0; c < 0xd800; c++) {
+            String body = "{ a }" + c;
+            try {
+                Parser.parse(new Source(body), new ParseOptions());
+            } catch (GraphQLLanguageException e) {
+                continue;
+            }
+            StreamingParser parser = new StreamingParser(new ParseOptions());
+            List<Definition> definitions = new ArrayList<>(parser.feed(body));
+            definitions.addAll(parser.finish());
+            assertEquals("after \\u" + Integer.toHexString(c), 1, definitions.size());
+        }
+    }
+
+    private static List<String> print(List<Definition> definitions) {
+        Printer printer = new Printer(false);
+        List<String> printed = new ArrayList<>();
+        for (Definition definition : definitions) {
+            printed.add(printer.print(definition));
+        }
+        return printed;
+    }
+}
@@ -0,0 +1,98 @@
+package org.sapzil.graphqlj.validation;
+
+import org.junit.Test;
+import org.sapzil.graphqlj.language.GraphQLLanguageException;
+import org.sapzil.graphqlj.language.ParseOptions;
+import org.sapzil.graphqlj.language.Parser;
+import org.sapzil.graphqlj.language.Source;
+import org.sapzil.graphqlj.language.ast.Document;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class ComplexityAnalyzerTest {
+    private static final String QUERY = "query Q($n: Int, $s: Boolean) {" +
+            " users(first: $n) { name friends(first: 10) { name } } skipped @skip: $s { a } x @include: false }";
+
+    @Test
+    public void sizeArgumentsMultiplyCost() throws GraphQLLanguageException {
+        Complexity complexity = new ComplexityAnalyzer().analyze(parse(QUERY), "Q", variables());
+        assertNull(complexity.getError());
+        assertEquals(3, complexity.getDepth());
+        assertEquals(4, complexity.getFieldCount());
+        // users + 5 * (name + friends + 10 * name)
+        assertEquals(1 + 5 * (1 + 1 + 10), complexity.getCost());
+    }
+
+    @Test
+    public void fieldCostsAndSizeArguments() throws GraphQLLanguageException {
+        Complexity complexity = new ComplexityAnalyzer()
+                .setFieldCost("users", 10)
+                .setSizeArguments("limit")
+                .analyze(parse("{ users(limit: 3, first: 100) { name } }"));
+        assertEquals(10 + 3, complexity.getCost());
+    }
+
+    @Test
+    public void limits() throws GraphQLLanguageException {
+        Document document = parse(QUERY);
+        assertEquals("Operation cost exceeds the limit of 50.",
+                new ComplexityAnalyzer().setMaxCost(50).analyze(document, "Q", variables()).getError().getMessage());
+        assertEquals("Operation depth exceeds the limit of 2.",
+                new ComplexityAnalyzer().setMaxDepth(2).analyze(document, "Q", variables()).getError().getMessage());
+        assertEquals("Operation selects more than 3 fields.",
+                new ComplexityAnalyzer().setMaxFieldCount(3).analyze(document, "Q", variables()).getError().getMessage());
+    }
+
+    @Test
+    public void fragmentsCountOncePerSpread() throws GraphQLLanguageException {
+        Complexity complexity = new ComplexityAnalyzer().analyze(parse(
+                "query Q { x(first: 10) { ...A ...A } ...B }" +
+                " fragment A on T { y z { w } } fragment B on T { ...A ...B q }"));
+        assertEquals(3, complexity.getDepth());
+        // x and A twice, then A and q; B within itself counts as empty.
+        assertEquals(1 + 3 * 2 + 3 + 1, complexity.getFieldCount());
+        assertEquals(1 + 10 * 3 * 2 + 3 + 1, complexity.getCost());
+    }
+
+    @Test
+    public void longFragmentChain() throws GraphQLLanguageException {
+        int length = 5000;
+        StringBuilder body = new StringBuilder("{ ...F0 }\n");
+        for (int i = 0; i < length; i++) {
+            body.append("fragment F").append(i).append(" on T { a ");
+            if (i + 1 < length) {
+                body.append("...F").append(i + 1);
+            }
+            body.append(" }\n");
+        }
+        Complexity complexity = new ComplexityAnalyzer().analyze(parse(body.toString()));
+        assertEquals(1, complexity.getDepth());
+        assertEquals(length, complexity.getFieldCount());
+    }
+
+    @Test
+    public void unknownOperation() throws GraphQLLanguageException {
+        try {
+            new ComplexityAnalyzer().analyze(parse(QUERY), "R", null);
+            fail("analyzed an unknown operation");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Unknown operation named \"R\".", e.getMessage());
+        }
+    }
+
+    private static Map<String, Object> variables() {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("n", 5);
+        variables.put("s", true);
+        return variables;
+    }
+
+    private static Document parse(String body) throws GraphQLLanguageException {
+        return Parser.parse(new Source(body), new ParseOptions());
+    }
+}
@@ -0,0 +1,95 @@
+package org.sapzil.graphqlj.validation;
+
+import org.junit.Test;
+import org.sapzil.graphqlj.language.GraphQLLanguageException;
+import org.sapzil.graphqlj.language.ParseOptions;
+import org.sapzil.graphqlj.language.Parser;
+import org.sapzil.graphqlj.language.Source;
+import org.sapzil.graphqlj.language.SourceLocation;
+import org.sapzil.graphqlj.language.ast.Document;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+
+public class ValidatorTest {
+    @Test
+    public void validDocument() throws GraphQLLanguageException {
+        check("query Q($a: Int) { ...F } fragment F on T { f(x: $a) ... on U { ...G } } fragment G on U { g }");
+    }
+
+    @Test
+    public void operationNames() throws GraphQLLanguageException {
+        check("{ a } { b }",
+                "This anonymous operation must be the only defined operation.",
+                "This anonymous operation must be the only defined operation.");
+        check("query A { a } query A { b }", "There can only be one operation named \"A\".");
+    }
+
+    @Test
+    public void duplicateFragmentIsNotAlsoUnused() throws GraphQLLanguageException {
+        check("{ ...F } fragment F on T { a } fragment F on T { b }",
+                "There can only be one fragment named \"F\".");
+        check("{ a } fragment F on T { a } fragment F on T { b }",
+                "There can only be one fragment named \"F\".",
+                "Fragment \"F\" is never used.");
+    }
+
+    @Test
+    public void fragments() throws GraphQLLanguageException {
+        check("{ ...X }", "Unknown fragment \"X\".");
+        check("{ a } fragment U on T { a }", "Fragment \"U\" is never used.");
+        check("{ ...A } fragment A on T { ...B } fragment B on T { ...A }",
+                "Cannot spread fragment \"A\" within itself via B.");
+    }
+
+    @Test
+    public void variables() throws GraphQLLanguageException {
+        check("query Q($a: Int, $b: Int) { f(x: $a, y: $c) }",
+                "Variable \"$c\" is not defined by operation \"Q\".",
+                "Variable \"$b\" is never used in operation \"Q\".");
+    }
+
+    @Test
+    public void errorsAreLocated() throws GraphQLLanguageException {
+        List<ValidationError> errors = new Validator().validate(parse("query A { a } query A { b }"));
+        assertEquals(Arrays.asList(new SourceLocation(1, 7), new SourceLocation(1, 21)), errors.get(0).getLocations());
+    }
+
+    @Test
+    public void parallelValidationMatchesSequential() throws GraphQLLanguageException {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            body.append("query Q").append(i).append("($v: Int) { f(x: $w) ...F").append(i).append(" }\n");
+            body.append("fragment F").append(i).append(" on T { ...F").append((i + 1) % 100).append(" }\n");
+        }
+        body.append("fragment Unused on T { a }\n");
+        Document document = parse(body.toString());
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertEquals(messages(new Validator().validate(document)),
+                    messages(new Validator(pool, 1).validate(document)));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void check(String body, String... expected) throws GraphQLLanguageException {
+        assertEquals(Arrays.asList(expected), messages(new Validator().validate(parse(body))));
+    }
+
+    private static List<String> messages(List<ValidationError> errors) {
+        List<String> messages = new ArrayList<>();
+        for (ValidationError error : errors) {
+            messages.add(error.getMessage());
+        }
+        return messages;
+    }
+
+    private static Document parse(String body) throws GraphQLLanguageException {
+        return Parser.parse(new Source(body), new ParseOptions());
+    }
+}